@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+// A* sobre la instantánea CSR usando como heurística la distancia euclidiana entre
+// las coordenadas (x, y) de las ubicaciones, escalada por GrafoCompacto.factorHeuristica.
+// Si el plano no tiene coordenadas completas la heurística vale 0 y equivale a Dijkstra.
+public class AEstrella {
+    private final GrafoCompacto g;
+    private final double[] distancias;
+    private final int[] predecesores;
+    private final HeapIndexado cola;
+    private final int[] tocados;
+    private int cantidadTocados;
+
+    public AEstrella(GrafoCompacto g) {
+        int n = g.cantidadNodos();
+        this.g = g;
+        this.distancias = new double[n];
+        this.predecesores = new int[n];
+        this.cola = new HeapIndexado(n);
+        this.tocados = new int[n];
+        Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecesores, -1);
+    }
+
+    public Camino buscar(int origen, int destino) {
+        reiniciar();
+        if (origen < 0 || destino < 0) return Camino.inexistente(0);
+
+        tocar(origen, 0.0, -1, destino);
+        int asentados = 0;
+
+        while (!cola.estaVacio()) {
+            int u = cola.extraerMinimo();
+            asentados++;
+            if (u == destino) {
+                return Camino.reconstruir(g, predecesores, destino, distancias[destino], asentados);
+            }
+
+            double du = distancias[u];
+            for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                int v = g.destinos[e];
+                double nueva = du + g.pesos[e];
+                if (nueva < distancias[v]) {
+                    tocar(v, nueva, u, destino);
+                }
+            }
+        }
+        return Camino.inexistente(asentados);
+    }
+
+    private void tocar(int v, double distancia, int predecesor, int destino) {
+        if (distancias[v] == Double.POSITIVE_INFINITY) {
+            tocados[cantidadTocados++] = v;
+        }
+        distancias[v] = distancia;
+        predecesores[v] = predecesor;
+        cola.insertarOActualizar(v, distancia + g.heuristica(v, destino));
+    }
+
+    private void reiniciar() {
+        for (int i = 0; i < cantidadTocados; i++) {
+            distancias[tocados[i]] = Double.POSITIVE_INFINITY;
+            predecesores[tocados[i]] = -1;
+        }
+        cantidadTocados = 0;
+        cola.limpiar();
+    }
+}
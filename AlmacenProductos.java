@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+// Contenedor de claves de producto de una ubicación. Cada Ubicacion elige su implementación
+// (BTree por defecto, BPlusTree para reportes por rango, MapaBitsProductos para espacios de
+// claves densos) con Grafo.cambiarAlmacen.
+public interface AlmacenProductos {
+    void insertar(int clave);
+
+    // Inserta un lote de claves; las implementaciones pueden ordenarlo y aplicarlo en una pasada
+    void insertarTodos(int[] claves);
+
+    boolean eliminar(int clave);
+
+    boolean buscar(int clave);
+
+    // Claves en orden ascendente
+    int[] claves();
+
+    int cantidadClaves();
+
+    // Claves en [desde, hasta] en orden ascendente. Por defecto busca los extremos en claves();
+    // BPlusTree lo resuelve recorriendo solo las hojas del rango
+    default int[] clavesEnRango(int desde, int hasta) {
+        if (desde > hasta) return new int[0];
+        int[] todas = claves();
+        return Arrays.copyOfRange(todas, primeraNoMenor(todas, desde), primeraMayor(todas, hasta));
+    }
+
+    private static int primeraNoMenor(int[] ordenadas, int clave) {
+        int lo = 0, hi = ordenadas.length;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (ordenadas[m] < clave) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    private static int primeraMayor(int[] ordenadas, int clave) {
+        int lo = 0, hi = ordenadas.length;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (ordenadas[m] <= clave) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // Memoria aproximada ocupada por la estructura, en bytes
+    long bytesEstimados();
+
+    String mostrarComoTexto();
+
+    // Uso interno de Grafo: enlaza el almacén con el índice global de inventario
+    void vincular(IndiceInventario indice, Ubicacion ubicacion);
+}
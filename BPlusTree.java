@@ -0,0 +1,381 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+class BPlusNode {
+    boolean hoja;
+    int n;
+    int[] claves;
+    BPlusNode[] hijos;     // Solo en nodos internos
+    BPlusNode siguiente;   // Solo en hojas: hoja de la derecha
+
+    BPlusNode(int t, boolean hoja) {
+        this.hoja = hoja;
+        this.claves = new int[2 * t - 1];
+        this.hijos = hoja ? null : new BPlusNode[2 * t];
+        this.n = 0;
+    }
+}
+
+// Árbol B+: todas las claves viven en hojas enlazadas de izquierda a derecha y los nodos
+// internos solo guardan separadores para enrutar. Para cada separador s, el hijo izquierdo
+// tiene claves <= s y el derecho claves >= s (admite claves repetidas, como BTree).
+// Los recorridos ordenados y por rango bajan una vez hasta la hoja inicial y luego
+// avanzan por la cadena de hojas, sin recursión. Se instala en una ubicación con
+// Grafo.cambiarAlmacen; Grafo.productosEnRango aprovecha entonces el recorrido por hojas.
+public class BPlusTree implements AlmacenProductos {
+    private BPlusNode raiz;
+    private final int t;
+    private int tamanio;
+    private IndiceInventario indice; // Índice global del grafo dueño, si lo hay
+    private Ubicacion ubicacion;
+
+    public BPlusTree() {
+        this(3);
+    }
+
+    public BPlusTree(int t) {
+        if (t < 2) throw new IllegalArgumentException("El orden mínimo es 2");
+        this.t = t;
+        this.raiz = new BPlusNode(t, true);
+        this.tamanio = 0;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    @Override
+    public int cantidadClaves() {
+        return tamanio;
+    }
+
+    // Enlaza el árbol con el índice global para mantenerlo al día en cada inserción y borrado
+    @Override
+    public void vincular(IndiceInventario indice, Ubicacion ubicacion) {
+        this.indice = indice;
+        this.ubicacion = ubicacion;
+    }
+
+    @Override
+    public void insertar(int clave) {
+        insertarEnArbol(clave);
+        if (indice != null) indice.agregar(clave, ubicacion);
+    }
+
+    // En orden ascendente, así las inserciones seguidas caen en la misma hoja
+    @Override
+    public void insertarTodos(int[] claves) {
+        int[] lote = claves.clone();
+        Arrays.sort(lote);
+        for (int clave : lote) insertar(clave);
+    }
+
+    private void insertarEnArbol(int clave) {
+        if (raiz.n == 2 * t - 1) {
+            BPlusNode s = new BPlusNode(t, false);
+            s.hijos[0] = raiz;
+            dividir(s, 0);
+            raiz = s;
+        }
+        BPlusNode x = raiz;
+        while (!x.hoja) {
+            int i = cotaSuperior(x, clave);
+            if (x.hijos[i].n == 2 * t - 1) {
+                dividir(x, i);
+                if (clave >= x.claves[i]) i++;
+            }
+            x = x.hijos[i];
+        }
+        int i = cotaSuperior(x, clave);
+        System.arraycopy(x.claves, i, x.claves, i + 1, x.n - i);
+        x.claves[i] = clave;
+        x.n++;
+        tamanio++;
+    }
+
+    // Divide el hijo lleno x.hijos[i]; en hojas el separador se copia, en internos sube
+    private void dividir(BPlusNode x, int i) {
+        BPlusNode y = x.hijos[i];
+        BPlusNode z = new BPlusNode(t, y.hoja);
+        int separador;
+
+        if (y.hoja) {
+            z.n = t - 1;
+            System.arraycopy(y.claves, t, z.claves, 0, t - 1);
+            y.n = t;
+            separador = z.claves[0];
+            z.siguiente = y.siguiente;
+            y.siguiente = z;
+        } else {
+            z.n = t - 1;
+            System.arraycopy(y.claves, t, z.claves, 0, t - 1);
+            System.arraycopy(y.hijos, t, z.hijos, 0, t);
+            separador = y.claves[t - 1];
+            y.n = t - 1;
+        }
+
+        System.arraycopy(x.hijos, i + 1, x.hijos, i + 2, x.n - i);
+        x.hijos[i + 1] = z;
+        System.arraycopy(x.claves, i, x.claves, i + 1, x.n - i);
+        x.claves[i] = separador;
+        x.n++;
+    }
+
+    @Override
+    public boolean buscar(int clave) {
+        BPlusNode hoja = hojaInicial(clave);
+        int i = cotaInferior(hoja, clave);
+        while (hoja != null) {
+            if (i < hoja.n) return hoja.claves[i] == clave;
+            hoja = hoja.siguiente;
+            i = 0;
+        }
+        return false;
+    }
+
+    // Cursor sobre las claves en [desde, hasta], en orden ascendente
+    public Cursor buscarRango(int desde, int hasta) {
+        BPlusNode hoja = hojaInicial(desde);
+        return new Cursor(hoja, cotaInferior(hoja, desde), hasta);
+    }
+
+    public Cursor iterador() {
+        BPlusNode hoja = raiz;
+        while (!hoja.hoja) hoja = hoja.hijos[0];
+        return new Cursor(hoja, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int[] clavesEnRango(int desde, int hasta) {
+        int[] resultado = new int[16];
+        int n = 0;
+        for (Cursor c = buscarRango(desde, hasta); c.hasNext(); ) {
+            if (n == resultado.length) resultado = Arrays.copyOf(resultado, n * 2);
+            resultado[n++] = c.nextInt();
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    public void recorrerRango(int desde, int hasta, IntConsumer accion) {
+        Cursor c = buscarRango(desde, hasta);
+        while (c.hasNext()) accion.accept(c.nextInt());
+    }
+
+    public int contarRango(int desde, int hasta) {
+        int total = 0;
+        for (Cursor c = buscarRango(desde, hasta); c.hasNext(); c.nextInt()) total++;
+        return total;
+    }
+
+    @Override
+    public int[] claves() {
+        int[] resultado = new int[tamanio];
+        int i = 0;
+        for (Cursor c = iterador(); c.hasNext(); ) resultado[i++] = c.nextInt();
+        return resultado;
+    }
+
+    // Hoja donde estaría la primera clave >= clave
+    private BPlusNode hojaInicial(int clave) {
+        BPlusNode x = raiz;
+        while (!x.hoja) {
+            x = x.hijos[cotaInferior(x, clave)];
+        }
+        return x;
+    }
+
+    // Primera posición con claves[i] >= clave
+    private static int cotaInferior(BPlusNode x, int clave) {
+        int lo = 0, hi = x.n;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (x.claves[m] < clave) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // Primera posición con claves[i] > clave
+    private static int cotaSuperior(BPlusNode x, int clave) {
+        int lo = 0, hi = x.n;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (x.claves[m] <= clave) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    @Override
+    public boolean eliminar(int clave) {
+        boolean eliminado = eliminarRec(raiz, clave);
+        if (!raiz.hoja && raiz.n == 0) {
+            raiz = raiz.hijos[0];
+        }
+        if (eliminado) {
+            tamanio--;
+            if (indice != null) indice.quitar(clave, ubicacion);
+        }
+        return eliminado;
+    }
+
+    private boolean eliminarRec(BPlusNode x, int clave) {
+        if (x.hoja) {
+            int i = cotaInferior(x, clave);
+            if (i >= x.n || x.claves[i] != clave) return false;
+            System.arraycopy(x.claves, i + 1, x.claves, i, x.n - i - 1);
+            x.n--;
+            return true;
+        }
+
+        // Con repetidos la clave puede estar en cualquiera de los hijos que comparten separador
+        int i = cotaInferior(x, clave);
+        while (true) {
+            if (eliminarRec(x.hijos[i], clave)) {
+                if (x.hijos[i].n < t - 1) rellenar(x, i);
+                return true;
+            }
+            if (i < x.n && x.claves[i] == clave) i++; else return false;
+        }
+    }
+
+    // x.hijos[i] quedó con menos de t - 1 claves: pide prestado a un hermano o se fusiona
+    private void rellenar(BPlusNode x, int i) {
+        if (i > 0 && x.hijos[i - 1].n > t - 1) {
+            prestarIzquierda(x, i);
+        } else if (i < x.n && x.hijos[i + 1].n > t - 1) {
+            prestarDerecha(x, i);
+        } else if (i < x.n) {
+            fusionar(x, i);
+        } else {
+            fusionar(x, i - 1);
+        }
+    }
+
+    private void prestarIzquierda(BPlusNode x, int i) {
+        BPlusNode hijo = x.hijos[i];
+        BPlusNode izq = x.hijos[i - 1];
+        System.arraycopy(hijo.claves, 0, hijo.claves, 1, hijo.n);
+        if (hijo.hoja) {
+            hijo.claves[0] = izq.claves[izq.n - 1];
+            x.claves[i - 1] = hijo.claves[0];
+        } else {
+            System.arraycopy(hijo.hijos, 0, hijo.hijos, 1, hijo.n + 1);
+            hijo.claves[0] = x.claves[i - 1];
+            hijo.hijos[0] = izq.hijos[izq.n];
+            izq.hijos[izq.n] = null;
+            x.claves[i - 1] = izq.claves[izq.n - 1];
+        }
+        hijo.n++;
+        izq.n--;
+    }
+
+    private void prestarDerecha(BPlusNode x, int i) {
+        BPlusNode hijo = x.hijos[i];
+        BPlusNode der = x.hijos[i + 1];
+        if (hijo.hoja) {
+            hijo.claves[hijo.n] = der.claves[0];
+            System.arraycopy(der.claves, 1, der.claves, 0, der.n - 1);
+            x.claves[i] = der.claves[0];
+        } else {
+            hijo.claves[hijo.n] = x.claves[i];
+            hijo.hijos[hijo.n + 1] = der.hijos[0];
+            x.claves[i] = der.claves[0];
+            System.arraycopy(der.claves, 1, der.claves, 0, der.n - 1);
+            System.arraycopy(der.hijos, 1, der.hijos, 0, der.n);
+            der.hijos[der.n] = null;
+        }
+        hijo.n++;
+        der.n--;
+    }
+
+    // Une x.hijos[i + 1] dentro de x.hijos[i] y quita el separador i de x
+    private void fusionar(BPlusNode x, int i) {
+        BPlusNode izq = x.hijos[i];
+        BPlusNode der = x.hijos[i + 1];
+        if (izq.hoja) {
+            System.arraycopy(der.claves, 0, izq.claves, izq.n, der.n);
+            izq.n += der.n;
+            izq.siguiente = der.siguiente;
+        } else {
+            izq.claves[izq.n] = x.claves[i];
+            System.arraycopy(der.claves, 0, izq.claves, izq.n + 1, der.n);
+            System.arraycopy(der.hijos, 0, izq.hijos, izq.n + 1, der.n + 1);
+            izq.n += der.n + 1;
+        }
+        System.arraycopy(x.claves, i + 1, x.claves, i, x.n - i - 1);
+        System.arraycopy(x.hijos, i + 2, x.hijos, i + 1, x.n - i - 1);
+        x.hijos[x.n] = null;
+        x.n--;
+    }
+
+    // Cabecera y arreglo de claves por nodo, más el arreglo de hijos en los internos
+    @Override
+    public long bytesEstimados() {
+        return 48 + bytesRec(raiz);
+    }
+
+    private long bytesRec(BPlusNode nodo) {
+        long total = 32 + 16 + 4L * nodo.claves.length;
+        if (!nodo.hoja) {
+            total += 16 + 8L * nodo.hijos.length;
+            for (int i = 0; i <= nodo.n; i++) total += bytesRec(nodo.hijos[i]);
+        }
+        return total;
+    }
+
+    @Override
+    public String mostrarComoTexto() {
+        return mostrarComoTextoRec(raiz, "");
+    }
+
+    private String mostrarComoTextoRec(BPlusNode nodo, String indent) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(indent).append(nodo.hoja ? "(" : "[");
+        for (int i = 0; i < nodo.n; i++) {
+            sb.append(nodo.claves[i]);
+            if (i < nodo.n - 1) sb.append(", ");
+        }
+        sb.append(nodo.hoja ? ")\n" : "]\n");
+        if (!nodo.hoja) {
+            for (int i = 0; i <= nodo.n; i++) {
+                sb.append(mostrarComoTextoRec(nodo.hijos[i], indent + "  "));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Recorre la cadena de hojas; no es válido si el árbol se modifica mientras se usa
+    public static class Cursor implements PrimitiveIterator.OfInt {
+        private BPlusNode hoja;
+        private int pos;
+        private final int hasta;
+
+        Cursor(BPlusNode hoja, int pos, int hasta) {
+            this.hoja = hoja;
+            this.pos = pos;
+            this.hasta = hasta;
+            avanzarHoja();
+        }
+
+        private void avanzarHoja() {
+            while (hoja != null && pos >= hoja.n) {
+                hoja = hoja.siguiente;
+                pos = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hoja != null && hoja.claves[pos] <= hasta;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int clave = hoja.claves[pos++];
+            avanzarHoja();
+            return clave;
+        }
+    }
+}
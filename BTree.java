@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 class BNode {
     int t;
     int n;
@@ -9,21 +11,52 @@ class BNode {
         this.t = t;
         this.hoja = hoja;
         this.claves = new int[2 * t - 1];
-        this.hijos = new BNode[2 * t];
+        this.hijos = hoja ? null : new BNode[2 * t];
         this.n = 0;
     }
 }
 
-public class BTree {
+public class BTree implements AlmacenProductos {
+    private static final int LOTE_MINIMO = 16;     // Lotes menores a claves/16 se aplican clave por clave
+    private static final double RELLENO_LOTE = 0.75;
+
     private BNode raiz;
-    private int t;
+    private final int t;
+    private int tamanio; // Cantidad de claves, repetidas incluidas
+    private IndiceInventario indice; // Índice global del grafo dueño, si lo hay
+    private Ubicacion ubicacion;
+
+    // Órdenes de referencia: nodos de 2t - 1 claves int que llenan una línea de caché de 64 bytes
+    // o una página de 4 KB
+    public static final int ORDEN_LINEA_CACHE = 8;
+    public static final int ORDEN_PAGINA = 512;
 
     public BTree() {
-        this.t = 3;
+        this(ORDEN_LINEA_CACHE);
+    }
+
+    public BTree(int t) {
+        if (t < 2) throw new IllegalArgumentException("El orden mínimo es 2");
+        this.t = t;
         this.raiz = new BNode(t, true);
     }
 
+    public int getOrden() {
+        return t;
+    }
+
+    // Enlaza el árbol con el índice global para mantenerlo al día en cada inserción y borrado
+    public void vincular(IndiceInventario indice, Ubicacion ubicacion) {
+        this.indice = indice;
+        this.ubicacion = ubicacion;
+    }
+
     public void insertar(int clave) {
+        insertarEnArbol(clave);
+        if (indice != null) indice.agregar(clave, ubicacion);
+    }
+
+    private void insertarEnArbol(int clave) {
         BNode r = raiz;
         if (r.n == 2 * t - 1) {
             BNode s = new BNode(t, false);
@@ -36,28 +69,23 @@ public class BTree {
         }
     }
 
+    // Descenso iterativo: cada hijo lleno se divide antes de bajar a él
     private void insertarNoLleno(BNode x, int clave) {
-        int i = x.n - 1;
-        if (x.hoja) {
-            while (i >= 0 && clave < x.claves[i]) {
-                x.claves[i + 1] = x.claves[i];
-                i--;
-            }
-            x.claves[i + 1] = clave;
-            x.n++;
-        } else {
-            while (i >= 0 && clave < x.claves[i]) {
-                i--;
-            }
-            i++;
+        while (!x.hoja) {
+            int i = cotaSuperior(x, clave);
             if (x.hijos[i].n == 2 * t - 1) {
                 dividir(x, i);
                 if (clave > x.claves[i]) {
                     i++;
                 }
             }
-            insertarNoLleno(x.hijos[i], clave);
+            x = x.hijos[i];
         }
+        int i = cotaSuperior(x, clave);
+        System.arraycopy(x.claves, i, x.claves, i + 1, x.n - i);
+        x.claves[i] = clave;
+        x.n++;
+        tamanio++;
     }
 
     private void dividir(BNode x, int i) {
@@ -125,56 +153,383 @@ public class BTree {
         return sb.toString();
     }
 
-     public boolean buscar(int clave) {
-        return buscarRec(raiz, clave);
+    public boolean buscar(int clave) {
+        BNode x = raiz;
+        while (true) {
+            int i = cotaInferior(x, clave);
+            if (i < x.n && x.claves[i] == clave) return true;
+            if (x.hoja) return false;
+            x = x.hijos[i];
+        }
     }
 
-    private boolean buscarRec(BNode nodo, int clave) {
-        int i = 0;
-        while (i < nodo.n && clave > nodo.claves[i]) {
-            i++;
+    // Primera posición con claves[i] >= clave
+    private static int cotaInferior(BNode x, int clave) {
+        int lo = 0, hi = x.n;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (x.claves[m] < clave) lo = m + 1; else hi = m;
         }
+        return lo;
+    }
 
-        if (i < nodo.n && clave == nodo.claves[i]) {
-            return true;
+    // Primera posición con claves[i] > clave
+    private static int cotaSuperior(BNode x, int clave) {
+        int lo = 0, hi = x.n;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (x.claves[m] <= clave) lo = m + 1; else hi = m;
         }
+        return lo;
+    }
 
-        if (nodo.hoja) {
-            return false;
-        } else {
-            return buscarRec(nodo.hijos[i], clave);
+    public boolean eliminar(int clave) {
+        boolean eliminado = eliminarEn(raiz, clave);
+        if (raiz.n == 0 && !raiz.hoja) {
+            raiz = raiz.hijos[0]; // La raíz quedó vacía tras una fusión: el árbol baja un nivel
         }
+        if (eliminado && indice != null) indice.quitar(clave, ubicacion);
+        return eliminado;
     }
 
-    public boolean eliminar(int clave) {
-        return eliminarRec(raiz, clave);
+    // Reemplaza el contenido por las claves dadas construyendo el árbol de abajo hacia arriba,
+    // sin divisiones. relleno (0, 1] es la fracción objetivo de claves por nodo; con valores
+    // bajos quedan huecos para inserciones posteriores sin dividir.
+    public void cargarMasivo(int[] claves, double relleno) {
+        if (!(relleno > 0 && relleno <= 1)) {
+            throw new IllegalArgumentException("El factor de relleno debe estar en (0, 1]: " + relleno);
+        }
+        int[] ordenadas = ordenar(claves);
+        if (indice != null) {
+            for (int clave : claves()) indice.quitar(clave, ubicacion);
+            for (int clave : ordenadas) indice.agregar(clave, ubicacion);
+        }
+        construir(ordenadas, relleno);
     }
 
-    private boolean eliminarRec(BNode nodo, int clave) {
-        int i = 0;
-        while (i < nodo.n && clave > nodo.claves[i]) {
-            i++;
+    // Inserta un lote de claves. Los lotes chicos se insertan en orden una a una; los grandes
+    // se mezclan con el contenido actual en una sola pasada y el árbol se reconstruye.
+    // Solo el segundo camino copia el contenido actual.
+    public void insertarTodos(int[] claves) {
+        int[] lote = ordenar(claves);
+        if (lote.length < tamanio / LOTE_MINIMO) {
+            for (int clave : lote) insertarEnArbol(clave);
+        } else {
+            int[] actuales = claves();
+            int[] mezcla = new int[actuales.length + lote.length];
+            int i = 0, j = 0, k = 0;
+            while (i < actuales.length && j < lote.length) {
+                mezcla[k++] = actuales[i] <= lote[j] ? actuales[i++] : lote[j++];
+            }
+            while (i < actuales.length) mezcla[k++] = actuales[i++];
+            while (j < lote.length) mezcla[k++] = lote[j++];
+            construir(mezcla, RELLENO_LOTE);
+        }
+        if (indice != null) {
+            for (int clave : lote) indice.agregar(clave, ubicacion);
         }
+    }
 
-        if (i < nodo.n && clave == nodo.claves[i]) {
-            if (nodo.hoja) {
-                for (int j = i; j < nodo.n - 1; j++) {
-                    nodo.claves[j] = nodo.claves[j + 1];
+    // Elimina una aparición por cada clave del lote; devuelve cuántas se eliminaron
+    public int eliminarTodos(int[] claves) {
+        int[] lote = ordenar(claves);
+        int eliminadas = 0;
+        if (lote.length < tamanio / LOTE_MINIMO) {
+            for (int clave : lote) {
+                if (eliminarEn(raiz, clave)) {
+                    if (raiz.n == 0 && !raiz.hoja) raiz = raiz.hijos[0];
+                    if (indice != null) indice.quitar(clave, ubicacion);
+                    eliminadas++;
                 }
-                nodo.n--;
-                return true;
+            }
+            return eliminadas;
+        }
+
+        // Diferencia de multiconjuntos en una pasada sobre ambas secuencias ordenadas
+        int[] actuales = claves();
+        int[] quedan = new int[actuales.length];
+        int i = 0, j = 0, k = 0;
+        while (i < actuales.length) {
+            while (j < lote.length && lote[j] < actuales[i]) j++;
+            if (j < lote.length && lote[j] == actuales[i]) {
+                if (indice != null) indice.quitar(lote[j], ubicacion);
+                eliminadas++;
+                i++;
+                j++;
             } else {
+                quedan[k++] = actuales[i++];
+            }
+        }
+        if (eliminadas > 0) construir(Arrays.copyOf(quedan, k), RELLENO_LOTE);
+        return eliminadas;
+    }
+
+    private static int[] ordenar(int[] claves) {
+        for (int i = 1; i < claves.length; i++) {
+            if (claves[i - 1] > claves[i]) {
+                int[] copia = claves.clone();
+                Arrays.sort(copia);
+                return copia;
+            }
+        }
+        return claves;
+    }
+
+    private void construir(int[] ordenadas, double relleno) {
+        int porNodo = (int) Math.round(relleno * (2 * t - 1));
+        porNodo = Math.max(t - 1, Math.min(2 * t - 1, porNodo));
+        int ramas = porNodo + 1;
+        int n = ordenadas.length;
+
+        // Altura mínima que entra con el relleno pedido, bajándola si la raíz no podría
+        // tener al menos dos hijos de tamaño válido
+        int altura = 1;
+        while (potencia(ramas, altura) - 1 < n) altura++;
+        while (altura > 1 && n + 1 < 2 * potencia(t, altura - 1)) altura--;
+
+        raiz = construirRec(ordenadas, 0, n, altura, ramas, true);
+        tamanio = n;
+    }
+
+    // Subárbol de la altura dada con las claves ordenadas[desde, hasta)
+    private BNode construirRec(int[] ordenadas, int desde, int hasta, int altura, int ramas, boolean esRaiz) {
+        int m = hasta - desde;
+        if (altura == 1) {
+            BNode hoja = new BNode(t, true);
+            System.arraycopy(ordenadas, desde, hoja.claves, 0, m);
+            hoja.n = m;
+            return hoja;
+        }
+
+        // Cantidad de hijos: la del relleno objetivo, acotada para que cada hijo quede
+        // entre el mínimo (t^h - 1) y el máximo ((2t)^h - 1) de claves de su altura
+        long total = m + 1L;
+        long objetivo = potencia(ramas, altura - 1);
+        long minimo = potencia(t, altura - 1);
+        long maximo = potencia(2 * t, altura - 1);
+        long c = (total + objetivo - 1) / objetivo;
+        c = Math.max(c, (total + maximo - 1) / maximo);
+        c = Math.min(c, total / minimo);
+        c = Math.max(esRaiz ? 2 : t, Math.min(2 * t, c));
+        int hijos = (int) c;
+
+        BNode x = new BNode(t, false);
+        int base = (int) (total / hijos);
+        int resto = (int) (total % hijos);
+        int pos = desde;
+        for (int j = 0; j < hijos; j++) {
+            int tamanio = base + (j < resto ? 1 : 0) - 1;
+            x.hijos[j] = construirRec(ordenadas, pos, pos + tamanio, altura - 1, ramas, false);
+            pos += tamanio;
+            if (j < hijos - 1) x.claves[j] = ordenadas[pos++];
+        }
+        x.n = hijos - 1;
+        return x;
+    }
+
+    // base^exp saturado para no desbordar
+    private static long potencia(int base, int exp) {
+        long r = 1;
+        for (int i = 0; i < exp; i++) {
+            r *= base;
+            if (r > Integer.MAX_VALUE) return (long) Integer.MAX_VALUE + 1;
+        }
+        return r;
+    }
+
+    // Claves en orden ascendente
+    public int[] claves() {
+        int[] resultado = new int[tamanio];
+        clavesRec(raiz, resultado, 0);
+        return resultado;
+    }
+
+    private int clavesRec(BNode nodo, int[] resultado, int pos) {
+        for (int i = 0; i < nodo.n; i++) {
+            if (!nodo.hoja) pos = clavesRec(nodo.hijos[i], resultado, pos);
+            resultado[pos++] = nodo.claves[i];
+        }
+        if (!nodo.hoja) pos = clavesRec(nodo.hijos[nodo.n], resultado, pos);
+        return pos;
+    }
+
+    // Borrado completo (CLRS): antes de bajar a un hijo se asegura que tenga al menos t claves,
+    // pidiendo prestado a un hermano o fusionándolo, así ningún nodo queda por debajo del mínimo
+    private boolean eliminarEn(BNode nodo, int clave) {
+        while (true) {
+            int i = cotaInferior(nodo, clave);
+
+            if (i < nodo.n && clave == nodo.claves[i]) {
+                if (nodo.hoja) {
+                    System.arraycopy(nodo.claves, i + 1, nodo.claves, i, nodo.n - i - 1);
+                    nodo.n--;
+                    tamanio--;
+                    return true;
+                }
+                if (nodo.hijos[i].n >= t) {
+                    clave = maximo(nodo.hijos[i]);
+                    nodo.claves[i] = clave;
+                    nodo = nodo.hijos[i];
+                } else if (nodo.hijos[i + 1].n >= t) {
+                    clave = minimo(nodo.hijos[i + 1]);
+                    nodo.claves[i] = clave;
+                    nodo = nodo.hijos[i + 1];
+                } else {
+                    fusionar(nodo, i);
+                    nodo = nodo.hijos[i];
+                }
+                continue;
+            }
+
+            if (nodo.hoja) {
                 return false;
             }
+
+            if (nodo.hijos[i].n < t) {
+                if (i > 0 && nodo.hijos[i - 1].n >= t) {
+                    prestarIzquierda(nodo, i);
+                } else if (i < nodo.n && nodo.hijos[i + 1].n >= t) {
+                    prestarDerecha(nodo, i);
+                } else if (i < nodo.n) {
+                    fusionar(nodo, i);
+                } else {
+                    fusionar(nodo, i - 1);
+                    i--;
+                }
+            }
+            nodo = nodo.hijos[i];
         }
+    }
 
-        if (nodo.hoja) {
-            return false;
-        } else {
-            return eliminarRec(nodo.hijos[i], clave);
+    private int maximo(BNode nodo) {
+        while (!nodo.hoja) nodo = nodo.hijos[nodo.n];
+        return nodo.claves[nodo.n - 1];
+    }
+
+    private int minimo(BNode nodo) {
+        while (!nodo.hoja) nodo = nodo.hijos[0];
+        return nodo.claves[0];
+    }
+
+    // Rota una clave del hermano izquierdo a x.hijos[i] pasando por el separador
+    private void prestarIzquierda(BNode x, int i) {
+        BNode hijo = x.hijos[i];
+        BNode izq = x.hijos[i - 1];
+        for (int j = hijo.n - 1; j >= 0; j--) hijo.claves[j + 1] = hijo.claves[j];
+        if (!hijo.hoja) {
+            for (int j = hijo.n; j >= 0; j--) hijo.hijos[j + 1] = hijo.hijos[j];
+            hijo.hijos[0] = izq.hijos[izq.n];
+            izq.hijos[izq.n] = null;
+        }
+        hijo.claves[0] = x.claves[i - 1];
+        x.claves[i - 1] = izq.claves[izq.n - 1];
+        hijo.n++;
+        izq.n--;
+    }
+
+    private void prestarDerecha(BNode x, int i) {
+        BNode hijo = x.hijos[i];
+        BNode der = x.hijos[i + 1];
+        hijo.claves[hijo.n] = x.claves[i];
+        if (!hijo.hoja) {
+            hijo.hijos[hijo.n + 1] = der.hijos[0];
+            for (int j = 0; j < der.n; j++) der.hijos[j] = der.hijos[j + 1];
+            der.hijos[der.n] = null;
+        }
+        x.claves[i] = der.claves[0];
+        for (int j = 0; j < der.n - 1; j++) der.claves[j] = der.claves[j + 1];
+        hijo.n++;
+        der.n--;
+    }
+
+    // Une x.hijos[i], el separador i y x.hijos[i + 1] en un solo nodo de 2t - 1 claves
+    private void fusionar(BNode x, int i) {
+        BNode izq = x.hijos[i];
+        BNode der = x.hijos[i + 1];
+        izq.claves[izq.n] = x.claves[i];
+        for (int j = 0; j < der.n; j++) izq.claves[izq.n + 1 + j] = der.claves[j];
+        if (!izq.hoja) {
+            for (int j = 0; j <= der.n; j++) izq.hijos[izq.n + 1 + j] = der.hijos[j];
+        }
+        izq.n += der.n + 1;
+
+        for (int j = i; j < x.n - 1; j++) x.claves[j] = x.claves[j + 1];
+        for (int j = i + 1; j < x.n; j++) x.hijos[j] = x.hijos[j + 1];
+        x.hijos[x.n] = null;
+        x.n--;
+    }
+
+    // Compara órdenes sobre una distribución real de claves: construye un árbol por orden
+    // insertando las claves una a una y mide la búsqueda de cada consulta
+    public static String compararOrdenes(int[] claves, int[] consultas, int... ordenes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%6s %7s %8s %9s %12s %12s %11s%n",
+                "orden", "altura", "nodos", "ocupación", "carga (ms)", "ns/búsqueda", "aciertos"));
+        for (int orden : ordenes) {
+            long t0 = System.nanoTime();
+            BTree arbol = new BTree(orden);
+            for (int clave : claves) arbol.insertarEnArbol(clave);
+            long t1 = System.nanoTime();
+
+            // Una vuelta de calentamiento y una medida
+            int encontradas = 0; // se informa para que el JIT no descarte las búsquedas
+            long inicio = 0;
+            for (int vuelta = 0; vuelta < 2; vuelta++) {
+                inicio = System.nanoTime();
+                for (int clave : consultas) {
+                    if (arbol.buscar(clave)) encontradas++;
+                }
+            }
+            long t2 = System.nanoTime();
+
+            double nsPorBusqueda = consultas.length == 0 ? 0 : (double) (t2 - inicio) / consultas.length;
+            sb.append(String.format("%6d %7d %8d %8.0f%% %12.1f %12.1f %11d%n", orden, arbol.altura(),
+                    arbol.cantidadNodos(), arbol.ocupacion() * 100, (t1 - t0) / 1e6, nsPorBusqueda,
+                    encontradas / 2));
         }
+        return sb.toString();
+    }
+
+    public int altura() {
+        int h = 1;
+        for (BNode x = raiz; !x.hoja; x = x.hijos[0]) h++;
+        return h;
+    }
+
+    public int cantidadNodos() {
+        return contarNodos(raiz);
+    }
+
+    private int contarNodos(BNode nodo) {
+        int total = 1;
+        if (!nodo.hoja) {
+            for (int i = 0; i <= nodo.n; i++) total += contarNodos(nodo.hijos[i]);
+        }
+        return total;
+    }
+
+    public int cantidadClaves() {
+        return tamanio;
+    }
+
+    // Cabecera y arreglo de claves por nodo, más el arreglo de hijos en los internos
+    public long bytesEstimados() {
+        return 32 + bytesRec(raiz);
+    }
+
+    private long bytesRec(BNode nodo) {
+        long total = 32 + 16 + 4L * nodo.claves.length;
+        if (!nodo.hoja) {
+            total += 16 + 8L * nodo.hijos.length;
+            for (int i = 0; i <= nodo.n; i++) total += bytesRec(nodo.hijos[i]);
+        }
+        return total;
+    }
+
+    // Fracción de casillas de clave ocupadas en todos los nodos (entre 0 y 1)
+    public double ocupacion() {
+        return (double) tamanio / ((double) cantidadNodos() * (2 * t - 1));
     }
 
-    
 }
 
@@ -0,0 +1,351 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+// Árbol B+ de claves de producto para muchos hilos a la vez, con acoplamiento optimista de
+// candados (optimistic lock coupling): cada nodo es un StampedLock cuya versión se lee al
+// pasar y se valida después. Las búsquedas no toman candados, solo reintentan si un nodo
+// cambió mientras lo leían. Una inserción bloquea únicamente la hoja que modifica; un nodo
+// lleno se divide al bajar bloqueando solo a él y a su padre. Como en el árbol B-link, las
+// hojas están enlazadas hacia la derecha y las claves nunca se mueven a la izquierda, así el
+// recorrido ordenado no pierde claves por divisiones concurrentes. El borrado es perezoso:
+// quita la clave de su hoja sin fusionar nodos. Es un conjunto: no guarda repetidos.
+public class BTreeConcurrente implements AlmacenProductos {
+    private final int maximo;                                   // Claves por nodo
+    private final StampedLock candadoRaiz = new StampedLock(); // Hace de padre de la raíz
+    private volatile Nodo raiz;
+    private final Nodo primeraHoja;                             // Las divisiones la conservan a la izquierda
+    private final LongAdder tamanio = new LongAdder();
+    private volatile IndiceInventario indice; // Índice global del grafo dueño, si lo hay
+    private volatile Ubicacion ubicacion;
+
+    public BTreeConcurrente() {
+        this(BTree.ORDEN_LINEA_CACHE);
+    }
+
+    public BTreeConcurrente(int t) {
+        if (t < 2) throw new IllegalArgumentException("El orden mínimo es 2");
+        this.maximo = 2 * t - 1;
+        this.primeraHoja = new Nodo(maximo, true);
+        this.raiz = primeraHoja;
+    }
+
+    @Override
+    public void vincular(IndiceInventario indice, Ubicacion ubicacion) {
+        this.ubicacion = ubicacion;
+        this.indice = indice;
+    }
+
+    @Override
+    public boolean buscar(int clave) {
+        while (true) {
+            long vRaiz = candadoRaiz.tryOptimisticRead();
+            Nodo nodo = raiz;
+            long v = nodo.tryOptimisticRead();
+            if (v != 0 && candadoRaiz.validate(vRaiz)) {
+                while (!nodo.hoja) {
+                    Nodo hijo = nodo.hijo(clave);
+                    long vHijo = hijo == null ? 0 : hijo.tryOptimisticRead();
+                    if (vHijo == 0 || !nodo.validate(v)) break;
+                    nodo = hijo;
+                    v = vHijo;
+                }
+                if (nodo.hoja) {
+                    boolean esta = nodo.posicion(clave) >= 0;
+                    if (nodo.validate(v)) return esta;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void insertar(int clave) {
+        insertarEnArbol(clave);
+    }
+
+    @Override
+    public void insertarTodos(int[] claves) {
+        int[] lote = claves.clone();
+        Arrays.sort(lote);
+        for (int clave : lote) insertar(clave);
+    }
+
+    @Override
+    public boolean eliminar(int clave) {
+        return eliminarDelArbol(clave);
+    }
+
+    // El tamaño y el índice global se actualizan con el candado de la hoja tomado: así dos
+    // operaciones sobre la misma clave llegan al índice en el mismo orden que a la hoja
+    private void alAgregar(int clave) {
+        tamanio.increment();
+        IndiceInventario i = indice;
+        if (i != null) i.agregar(clave, ubicacion);
+    }
+
+    private void alQuitar(int clave) {
+        tamanio.decrement();
+        IndiceInventario i = indice;
+        if (i != null) i.quitar(clave, ubicacion);
+    }
+
+    private boolean insertarEnArbol(int clave) {
+        while (true) {
+            long vRaiz = candadoRaiz.tryOptimisticRead();
+            Nodo nodo = raiz;
+            long v = nodo.tryOptimisticRead();
+            if (v != 0 && candadoRaiz.validate(vRaiz)) {
+                Nodo padre = null;
+                StampedLock candadoPadre = candadoRaiz;
+                long vPadre = vRaiz;
+                while (true) {
+                    if (nodo.n == maximo) {
+                        // Lleno: se divide con el padre bloqueado y se vuelve a bajar desde la raíz
+                        dividir(padre, candadoPadre, vPadre, nodo, v);
+                        break;
+                    }
+                    if (nodo.hoja) {
+                        long w = nodo.tryConvertToWriteLock(v);
+                        if (w == 0) break;
+                        try {
+                            boolean nueva = nodo.insertarEnHoja(clave);
+                            if (nueva) alAgregar(clave);
+                            return nueva;
+                        } finally {
+                            nodo.unlockWrite(w);
+                        }
+                    }
+                    Nodo hijo = nodo.hijo(clave);
+                    long vHijo = hijo == null ? 0 : hijo.tryOptimisticRead();
+                    if (vHijo == 0 || !nodo.validate(v)) break;
+                    padre = nodo;
+                    candadoPadre = nodo;
+                    vPadre = v;
+                    nodo = hijo;
+                    v = vHijo;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean eliminarDelArbol(int clave) {
+        while (true) {
+            long vRaiz = candadoRaiz.tryOptimisticRead();
+            Nodo nodo = raiz;
+            long v = nodo.tryOptimisticRead();
+            if (v != 0 && candadoRaiz.validate(vRaiz)) {
+                while (!nodo.hoja) {
+                    Nodo hijo = nodo.hijo(clave);
+                    long vHijo = hijo == null ? 0 : hijo.tryOptimisticRead();
+                    if (vHijo == 0 || !nodo.validate(v)) break;
+                    nodo = hijo;
+                    v = vHijo;
+                }
+                if (nodo.hoja) {
+                    long w = nodo.tryConvertToWriteLock(v);
+                    if (w != 0) {
+                        try {
+                            boolean quitada = nodo.quitarDeHoja(clave);
+                            if (quitada) alQuitar(clave);
+                            return quitada;
+                        } finally {
+                            nodo.unlockWrite(w);
+                        }
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Si ni el padre ni el nodo cambiaron desde que se leyeron, los bloquea y divide el nodo.
+    // Al bajar se dividió todo nodo lleno, así que el padre tiene lugar para el separador.
+    private void dividir(Nodo padre, StampedLock candadoPadre, long vPadre, Nodo nodo, long v) {
+        long wPadre = candadoPadre.tryConvertToWriteLock(vPadre);
+        if (wPadre == 0) return;
+        long w = nodo.tryConvertToWriteLock(v);
+        if (w == 0) {
+            candadoPadre.unlockWrite(wPadre);
+            return;
+        }
+        try {
+            Nodo derecho = new Nodo(maximo, nodo.hoja);
+            int separador = nodo.partir(derecho);
+            if (padre == null) {
+                Nodo nuevaRaiz = new Nodo(maximo, false);
+                nuevaRaiz.claves[0] = separador;
+                nuevaRaiz.hijos[0] = nodo;
+                nuevaRaiz.hijos[1] = derecho;
+                nuevaRaiz.n = 1;
+                raiz = nuevaRaiz;
+            } else {
+                padre.insertarSeparador(separador, derecho);
+            }
+        } finally {
+            nodo.unlockWrite(w);
+            candadoPadre.unlockWrite(wPadre);
+        }
+    }
+
+    // Recorre la cadena de hojas con candados de lectura. No es una foto atómica: cada clave
+    // presente durante todo el recorrido aparece una vez, y las que cambian en medio pueden o no.
+    @Override
+    public int[] claves() {
+        int[] resultado = new int[Math.max(16, cantidadClaves())];
+        int k = 0;
+        for (Nodo hoja = primeraHoja; hoja != null; ) {
+            Nodo siguiente;
+            long s = hoja.readLock();
+            try {
+                if (k + hoja.n > resultado.length) {
+                    resultado = Arrays.copyOf(resultado, Math.max(resultado.length * 2, k + hoja.n));
+                }
+                System.arraycopy(hoja.claves, 0, resultado, k, hoja.n);
+                k += hoja.n;
+                siguiente = hoja.siguiente;
+            } finally {
+                hoja.unlockRead(s);
+            }
+            hoja = siguiente;
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+
+    @Override
+    public int cantidadClaves() {
+        return tamanio.intValue();
+    }
+
+    @Override
+    public long bytesEstimados() {
+        return 64 + bytesRec(raiz);
+    }
+
+    private long bytesRec(Nodo nodo) {
+        long total = 48 + 16 + 4L * nodo.claves.length;
+        if (!nodo.hoja) {
+            total += 16 + 8L * nodo.hijos.length;
+            for (Nodo hijo : hijosDe(nodo)) total += bytesRec(hijo);
+        }
+        return total;
+    }
+
+    @Override
+    public String mostrarComoTexto() {
+        StringBuilder sb = new StringBuilder();
+        mostrarRec(raiz, "", sb);
+        return sb.toString();
+    }
+
+    private void mostrarRec(Nodo nodo, String indent, StringBuilder sb) {
+        int[] claves;
+        long s = nodo.readLock();
+        try {
+            claves = Arrays.copyOf(nodo.claves, nodo.n);
+        } finally {
+            nodo.unlockRead(s);
+        }
+        sb.append(indent).append(nodo.hoja ? "(" : "[");
+        for (int i = 0; i < claves.length; i++) {
+            sb.append(claves[i]);
+            if (i < claves.length - 1) sb.append(", ");
+        }
+        sb.append(nodo.hoja ? ")\n" : "]\n");
+        if (!nodo.hoja) {
+            for (Nodo hijo : hijosDe(nodo)) mostrarRec(hijo, indent + "  ", sb);
+        }
+    }
+
+    private static Nodo[] hijosDe(Nodo nodo) {
+        long s = nodo.readLock();
+        try {
+            return Arrays.copyOf(nodo.hijos, nodo.n + 1);
+        } finally {
+            nodo.unlockRead(s);
+        }
+    }
+
+    // Los campos se escriben solo con el candado de escritura tomado; las lecturas optimistas
+    // pueden ver un estado a medio cambiar, por eso nunca confían en él sin validar la versión.
+    // Hereda el candado en lugar de tenerlo en un campo para no sumar un objeto por nodo; nunca
+    // se serializa.
+    @SuppressWarnings("serial")
+    private static final class Nodo extends StampedLock {
+        final boolean hoja;
+        final int[] claves;
+        final Nodo[] hijos;  // Solo en nodos internos
+        int n;
+        Nodo siguiente;      // Solo en hojas: hoja de la derecha
+
+        Nodo(int maximo, boolean hoja) {
+            this.hoja = hoja;
+            this.claves = new int[maximo];
+            this.hijos = hoja ? null : new Nodo[maximo + 1];
+        }
+
+        // Hijo por el que sigue la clave: hay tantos separadores <= clave como su índice
+        Nodo hijo(int clave) {
+            int lo = 0, hi = Math.min(n, claves.length);
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (claves[m] <= clave) lo = m + 1; else hi = m;
+            }
+            return hijos[lo];
+        }
+
+        // Índice de la clave, o -(punto de inserción) - 1
+        int posicion(int clave) {
+            return Arrays.binarySearch(claves, 0, Math.min(n, claves.length), clave);
+        }
+
+        boolean insertarEnHoja(int clave) {
+            int p = posicion(clave);
+            if (p >= 0) return false;
+            p = -p - 1;
+            System.arraycopy(claves, p, claves, p + 1, n - p);
+            claves[p] = clave;
+            n++;
+            return true;
+        }
+
+        boolean quitarDeHoja(int clave) {
+            int p = posicion(clave);
+            if (p < 0) return false;
+            System.arraycopy(claves, p + 1, claves, p, n - p - 1);
+            n--;
+            return true;
+        }
+
+        // Pasa la mitad derecha a derecho y devuelve el separador que sube al padre
+        int partir(Nodo derecho) {
+            int mitad = n / 2;
+            if (hoja) {
+                System.arraycopy(claves, mitad, derecho.claves, 0, n - mitad);
+                derecho.n = n - mitad;
+                derecho.siguiente = siguiente;
+                siguiente = derecho;
+                n = mitad;
+                return derecho.claves[0];
+            }
+            int separador = claves[mitad];
+            System.arraycopy(claves, mitad + 1, derecho.claves, 0, n - mitad - 1);
+            System.arraycopy(hijos, mitad + 1, derecho.hijos, 0, n - mitad);
+            Arrays.fill(hijos, mitad + 1, n + 1, null);
+            derecho.n = n - mitad - 1;
+            n = mitad;
+            return separador;
+        }
+
+        void insertarSeparador(int separador, Nodo derecho) {
+            int i = 0;
+            while (i < n && claves[i] <= separador) i++;
+            System.arraycopy(claves, i, claves, i + 1, n - i);
+            System.arraycopy(hijos, i + 1, hijos, i + 2, n - i);
+            claves[i] = separador;
+            hijos[i + 1] = derecho;
+            n++;
+        }
+    }
+}
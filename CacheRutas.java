@@ -0,0 +1,160 @@
+import java.util.*;
+
+// Caché LRU de árboles de caminos mínimos indexada por (origen, versión del grafo).
+// Cualquier modificación del grafo cambia la versión, así que un árbol guardado
+// nunca se devuelve después de que el grafo cambió. Para los orígenes consultados siempre
+// (p. ej. "Entrada") se puede mantener un árbol que se repara con cada cambio: tras una
+// modificación el árbol se copia del reparado en lugar de correr Dijkstra de nuevo.
+public class CacheRutas {
+    private final Grafo grafo;
+    private final int capacidad;
+    private final LinkedHashMap<Clave, ResultadoDijkstra> arboles;
+    private final Map<String, DistanciasDinamicas> mantenidos = new HashMap<>();
+    private long ultimaVersion;
+    private long aciertos;
+    private long fallos;
+    private long desalojos;       // Solo por capacidad (LRU)
+    private long invalidaciones;  // Árboles descartados porque el grafo cambió
+    private long reparados; // Fallos resueltos con un árbol mantenido
+
+    public CacheRutas(Grafo grafo, int capacidad) {
+        this.grafo = grafo;
+        this.capacidad = capacidad;
+        this.ultimaVersion = grafo.getVersion();
+        this.arboles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, ResultadoDijkstra> mayor) {
+                if (size() > CacheRutas.this.capacidad) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public ResultadoDijkstra arbol(String origen) {
+        return arbol(grafo.compactar(), origen);
+    }
+
+    // Árbol sobre la instantánea g, para las tareas que no deben leer el grafo vivo. Una
+    // instantánea más vieja que la última vista se calcula sin guardarla ni vaciar la caché.
+    public synchronized ResultadoDijkstra arbol(GrafoCompacto g, String origen) {
+        long version = g.version;
+        if (version < ultimaVersion) {
+            fallos++;
+            return calcular(g, origen);
+        }
+        if (version != ultimaVersion) {
+            // Las entradas de versiones anteriores ya no pueden acertar
+            invalidaciones += arboles.size();
+            arboles.clear();
+            ultimaVersion = version;
+        }
+
+        Clave clave = new Clave(origen, version);
+        ResultadoDijkstra arbol = arboles.get(clave);
+        if (arbol != null) {
+            aciertos++;
+            return arbol;
+        }
+        fallos++;
+        arbol = calcular(g, origen);
+        arboles.put(clave, arbol);
+        return arbol;
+    }
+
+    // Empieza a reparar el árbol de origen con cada cambio del grafo; false si no existe
+    public synchronized boolean mantener(String origen) {
+        DistanciasDinamicas d = mantenidos.get(origen);
+        if (d != null && d.tieneOrigen(origen)) return true;
+        if (d != null) d.cerrar();
+        mantenidos.remove(origen);
+        if (grafo.getUbicacion(origen) == null) return false;
+        mantenidos.put(origen, new DistanciasDinamicas(grafo, origen));
+        return true;
+    }
+
+    public synchronized void dejarDeMantener(String origen) {
+        DistanciasDinamicas d = mantenidos.remove(origen);
+        if (d != null) d.cerrar();
+    }
+
+    private ResultadoDijkstra calcular(GrafoCompacto g, String origen) {
+        DistanciasDinamicas d = mantenidos.get(origen);
+        if (d != null) {
+            // Con el candado del grafo el árbol reparado no cambia mientras se copia, y solo
+            // sirve si refleja la misma versión que la instantánea
+            synchronized (grafo) {
+                if (d.getVersion() == g.version && d.tieneOrigen(origen)) {
+                    reparados++;
+                    return d.resultado(g);
+                }
+            }
+        }
+        return Dijkstra.calcular(g, origen, null);
+    }
+
+    public Map<String, Double> distancias(String origen) {
+        return arbol(origen).comoMapa();
+    }
+
+    public double distancia(String origen, String destino) {
+        return arbol(origen).distancia(destino);
+    }
+
+    public Camino camino(String origen, String destino) {
+        return arbol(origen).camino(destino);
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getReparados() {
+        return reparados;
+    }
+
+    public synchronized long getDesalojos() {
+        return desalojos;
+    }
+
+    public synchronized long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    public synchronized int tamanio() {
+        return arboles.size();
+    }
+
+    public synchronized String estadisticas() {
+        return "Caché de rutas: " + aciertos + " aciertos, " + fallos + " fallos ("
+            + reparados + " con árbol mantenido), " + desalojos + " desalojos, " + invalidaciones + " invalidaciones, " + arboles.size() + "/" + capacidad + " árboles";
+    }
+
+    private static final class Clave {
+        final String origen;
+        final long version;
+
+        Clave(String origen, long version) {
+            this.origen = origen;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) return false;
+            Clave otra = (Clave) o;
+            return version == otra.version && origen.equals(otra.origen);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * origen.hashCode() + Long.hashCode(version);
+        }
+    }
+}
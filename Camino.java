@@ -0,0 +1,51 @@
+import java.util.*;
+
+// Ruta concreta entre dos ubicaciones: secuencia de nombres y distancia total
+public class Camino {
+    final List<String> ubicaciones;
+    final double distancia;
+    final int nodosExplorados;
+
+    public Camino(List<String> ubicaciones, double distancia, int nodosExplorados) {
+        this.ubicaciones = ubicaciones;
+        this.distancia = distancia;
+        this.nodosExplorados = nodosExplorados;
+    }
+
+    public static Camino inexistente(int nodosExplorados) {
+        return new Camino(Collections.emptyList(), Double.POSITIVE_INFINITY, nodosExplorados);
+    }
+
+    // Reconstruye el camino siguiendo el arreglo de predecesores desde el destino
+    static Camino reconstruir(GrafoCompacto g, int[] predecesores, int destino, double distancia, int nodosExplorados) {
+        if (destino < 0 || distancia == Double.POSITIVE_INFINITY) return inexistente(nodosExplorados);
+        ArrayList<String> nombres = new ArrayList<>();
+        for (int v = destino; v >= 0; v = predecesores[v]) {
+            nombres.add(g.nombres[v]);
+        }
+        Collections.reverse(nombres);
+        return new Camino(nombres, distancia, nodosExplorados);
+    }
+
+    public boolean existe() {
+        return !ubicaciones.isEmpty();
+    }
+
+    public List<String> getUbicaciones() {
+        return ubicaciones;
+    }
+
+    public double getDistancia() {
+        return distancia;
+    }
+
+    public int getNodosExplorados() {
+        return nodosExplorados;
+    }
+
+    @Override
+    public String toString() {
+        if (!existe()) return "sin ruta";
+        return String.join(" → ", ubicaciones) + " (" + distancia + ")";
+    }
+}
@@ -0,0 +1,282 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cantidades por clave de producto de una ubicación: disponible y reservada, como long
+// primitivos. Las claves se reparten en segmentos según su hash; cada segmento es una tabla
+// de direccionamiento abierto con su propio candado, así los preparadores que trabajan con
+// productos distintos casi nunca se bloquean entre sí y ninguna operación crea objetos.
+// Todas las operaciones son atómicas; las de pedido completo aplican todo o nada.
+// Los arreglos de un segmento se reservan recién con su primera clave, así una ubicación con
+// pocos productos no paga las dieciséis tablas.
+public class CantidadesProductos {
+    private static final int SEGMENTOS = 16; // Potencia de 2, a lo sumo 32 (máscara int)
+
+    private final Segmento[] segmentos;
+
+    public CantidadesProductos() {
+        this.segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+
+    public long disponible(int clave) {
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            int i = s.posicion(clave);
+            return s.ocupada[i] ? s.disponibles[i] : 0;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    public long reservada(int clave) {
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            int i = s.posicion(clave);
+            return s.ocupada[i] ? s.reservadas[i] : 0;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Suma delta a lo disponible (reposición o corrección de conteo); falla si quedaría negativo
+    public boolean ajustar(int clave, long delta) {
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            return s.ajustar(clave, delta);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Aparta cantidad de lo disponible para un pedido; falla si no alcanza
+    public boolean reservar(int clave, long cantidad) {
+        validar(cantidad);
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            return s.mover(clave, cantidad);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Devuelve a lo disponible una cantidad reservada; falla si no hay tanto reservado
+    public boolean liberar(int clave, long cantidad) {
+        validar(cantidad);
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            return s.mover(clave, -cantidad);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Retira una cantidad reservada al preparar el pedido; falla si no hay tanto reservado
+    public boolean consumirReserva(int clave, long cantidad) {
+        validar(cantidad);
+        Segmento s = segmento(clave);
+        s.lock();
+        try {
+            return s.consumir(clave, cantidad);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    // Descuenta de lo disponible todas las líneas de un pedido, o ninguna si alguna no alcanza.
+    // Una clave puede repetirse en el pedido.
+    public boolean descontarPedido(int[] claves, long[] cantidades) {
+        return aplicarPedido(claves, cantidades, false);
+    }
+
+    // Reserva todas las líneas de un pedido, o ninguna si alguna no alcanza
+    public boolean reservarPedido(int[] claves, long[] cantidades) {
+        return aplicarPedido(claves, cantidades, true);
+    }
+
+    public int cantidadClaves() {
+        int total = 0;
+        for (Segmento s : segmentos) {
+            s.lock();
+            try {
+                total += s.tamanio;
+            } finally {
+                s.unlock();
+            }
+        }
+        return total;
+    }
+
+    // Claves registradas, en orden ascendente (instantánea no atómica entre segmentos)
+    public int[] claves() {
+        int[] resultado = new int[0];
+        int n = 0;
+        for (Segmento s : segmentos) {
+            s.lock();
+            try {
+                resultado = Arrays.copyOf(resultado, n + s.tamanio);
+                for (int i = 0; i < s.claves.length; i++) {
+                    if (s.ocupada[i]) resultado[n++] = s.claves[i];
+                }
+            } finally {
+                s.unlock();
+            }
+        }
+        Arrays.sort(resultado, 0, n);
+        return n == resultado.length ? resultado : Arrays.copyOf(resultado, n);
+    }
+
+    private boolean aplicarPedido(int[] claves, long[] cantidades, boolean reservar) {
+        if (claves.length != cantidades.length) {
+            throw new IllegalArgumentException("Claves y cantidades deben tener el mismo largo");
+        }
+        for (long cantidad : cantidades) validar(cantidad);
+
+        // Los candados se toman en orden de segmento para que dos pedidos no se bloqueen mutuamente
+        int mascara = 0;
+        for (int clave : claves) mascara |= 1 << indiceSegmento(clave);
+        for (int i = 0; i < SEGMENTOS; i++) {
+            if ((mascara & (1 << i)) != 0) segmentos[i].lock();
+        }
+        try {
+            for (int k = 0; k < claves.length; k++) {
+                Segmento s = segmento(claves[k]);
+                boolean ok = reservar ? s.mover(claves[k], cantidades[k]) : s.ajustar(claves[k], -cantidades[k]);
+                if (!ok) {
+                    // Deshace las líneas ya aplicadas, en orden inverso
+                    for (int j = k - 1; j >= 0; j--) {
+                        Segmento sj = segmento(claves[j]);
+                        if (reservar) sj.mover(claves[j], -cantidades[j]);
+                        else sj.ajustar(claves[j], cantidades[j]);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            for (int i = SEGMENTOS - 1; i >= 0; i--) {
+                if ((mascara & (1 << i)) != 0) segmentos[i].unlock();
+            }
+        }
+    }
+
+    private static void validar(long cantidad) {
+        if (cantidad < 0) throw new IllegalArgumentException("Cantidad negativa: " + cantidad);
+    }
+
+    private Segmento segmento(int clave) {
+        return segmentos[indiceSegmento(clave)];
+    }
+
+    // Bits altos del hash para el segmento; la tabla de cada segmento usa los bajos
+    private static int indiceSegmento(int clave) {
+        return mezclar(clave) >>> (32 - Integer.numberOfTrailingZeros(SEGMENTOS));
+    }
+
+    private static int mezclar(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Tabla compartida de una casilla siempre libre: los segmentos vacíos la usan para leer
+    // sin reservar nada; casilla() redimensiona antes de la primera escritura
+    private static final int[] SIN_CLAVES = new int[1];
+    private static final long[] SIN_CANTIDADES = new long[1];
+    private static final boolean[] SIN_OCUPAR = new boolean[1];
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    // Tabla de sondeo lineal de un segmento; solo se usa con su candado tomado
+    private static final class Segmento {
+        private final ReentrantLock candado = new ReentrantLock();
+        int[] claves = SIN_CLAVES;
+        long[] disponibles = SIN_CANTIDADES;
+        long[] reservadas = SIN_CANTIDADES;
+        boolean[] ocupada = SIN_OCUPAR;
+        int tamanio;
+
+        void lock() {
+            candado.lock();
+        }
+
+        void unlock() {
+            candado.unlock();
+        }
+
+        int posicion(int clave) {
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (ocupada[i] && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            return i;
+        }
+
+        // Casilla de la clave, creándola con cantidades en cero si no existe
+        int casilla(int clave) {
+            int i = posicion(clave);
+            if (!ocupada[i]) {
+                if ((tamanio + 1) * 4 > claves.length * 3) {
+                    redimensionar();
+                    i = posicion(clave);
+                }
+                ocupada[i] = true;
+                claves[i] = clave;
+                disponibles[i] = 0;
+                reservadas[i] = 0;
+                tamanio++;
+            }
+            return i;
+        }
+
+        boolean ajustar(int clave, long delta) {
+            int i = delta >= 0 ? casilla(clave) : posicion(clave);
+            if (!ocupada[i] || disponibles[i] + delta < 0) return false;
+            disponibles[i] += delta;
+            return true;
+        }
+
+        // Positivo: de disponible a reservada; negativo: de reservada a disponible
+        boolean mover(int clave, long cantidad) {
+            int i = posicion(clave);
+            if (!ocupada[i]) return false;
+            if (cantidad >= 0 ? disponibles[i] < cantidad : reservadas[i] < -cantidad) return false;
+            disponibles[i] -= cantidad;
+            reservadas[i] += cantidad;
+            return true;
+        }
+
+        boolean consumir(int clave, long cantidad) {
+            int i = posicion(clave);
+            if (!ocupada[i] || reservadas[i] < cantidad) return false;
+            reservadas[i] -= cantidad;
+            return true;
+        }
+
+        private void redimensionar() {
+            int[] viejasClaves = claves;
+            long[] viejosDisponibles = disponibles;
+            long[] viejasReservadas = reservadas;
+            boolean[] viejaOcupada = ocupada;
+            int capacidad = Math.max(CAPACIDAD_INICIAL, viejasClaves.length * 2);
+            claves = new int[capacidad];
+            disponibles = new long[capacidad];
+            reservadas = new long[capacidad];
+            ocupada = new boolean[capacidad];
+            for (int i = 0; i < viejasClaves.length; i++) {
+                if (viejaOcupada[i]) {
+                    int j = posicion(viejasClaves[i]);
+                    ocupada[j] = true;
+                    claves[j] = viejasClaves[i];
+                    disponibles[j] = viejosDisponibles[i];
+                    reservadas[j] = viejasReservadas[i];
+                }
+            }
+        }
+    }
+}
@@ -1,45 +1,38 @@
-
 import java.util.*;
 
 public class Dijkstra {
     public static Map<String, Double> calcularDistancias(Grafo grafo, String origen) {
-        Map<String, Double> distancias = new HashMap<>();
-        Set<String> visitados = new HashSet<>();
-        PriorityQueue<NodoDistancia> cola = new PriorityQueue<>(Comparator.comparingDouble(nd -> nd.distancia));
-
-        for (String nombre : grafo.getNombresUbicaciones()) {
-            distancias.put(nombre, Double.POSITIVE_INFINITY);
-        }
-
-        distancias.put(origen, 0.0);
-        cola.add(new NodoDistancia(origen, 0.0));
+        return calcularDistancias(grafo.compactar(), origen);
+    }
 
-        while (!cola.isEmpty()) {
-            NodoDistancia actual = cola.poll();
-            if (visitados.contains(actual.nombre)) continue;
-            visitados.add(actual.nombre);
+    public static Map<String, Double> calcularDistancias(GrafoCompacto g, String origen) {
+        return calcular(g, origen, null).comoMapa();
+    }
 
-            Ubicacion uActual = grafo.getUbicacion(actual.nombre);
-            for (Ruta r : uActual.rutas) {
-                double nuevaDistancia = distancias.get(actual.nombre) + r.peso;
-                String destino = r.destino.nombre;
-                if (nuevaDistancia < distancias.get(destino)) {
-                    distancias.put(destino, nuevaDistancia);
-                    cola.add(new NodoDistancia(destino, nuevaDistancia));
-                }
-            }
-        }
+    // Árbol de caminos mínimos desde origen. Con destino != null la búsqueda
+    // termina al asentar el destino en lugar de recorrer todo el grafo.
+    public static ResultadoDijkstra calcular(GrafoCompacto g, String origen, String destino) {
+        MotorDijkstra motor = new MotorDijkstra(g);
+        motor.ejecutar(g.indice(origen), destino == null ? -1 : g.indice(destino));
+        return motor.resultado();
+    }
 
-        return distancias;
+    public static Camino rutaMasCorta(Grafo grafo, String origen, String destino) {
+        GrafoCompacto g = grafo.compactar();
+        int d = g.indice(destino);
+        if (d < 0) return Camino.inexistente(0);
+        MotorDijkstra motor = new MotorDijkstra(g);
+        motor.ejecutar(g.indice(origen), d);
+        return motor.camino(d);
     }
 
-    private static class NodoDistancia {
-        String nombre;
-        double distancia;
+    public static Camino rutaBidireccional(Grafo grafo, String origen, String destino) {
+        GrafoCompacto g = grafo.compactar();
+        return new DijkstraBidireccional(g).buscar(g.indice(origen), g.indice(destino));
+    }
 
-        NodoDistancia(String nombre, double distancia) {
-            this.nombre = nombre;
-            this.distancia = distancia;
-        }
+    public static Camino rutaAEstrella(Grafo grafo, String origen, String destino) {
+        GrafoCompacto g = grafo.compactar();
+        return new AEstrella(g).buscar(g.indice(origen), g.indice(destino));
     }
 }
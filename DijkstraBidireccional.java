@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+// Dijkstra bidireccional para consultas origen-destino: avanza a la vez desde el
+// origen por las rutas salientes y desde el destino por las entrantes, y termina
+// cuando la suma de los dos mínimos pendientes ya no puede mejorar el mejor encuentro.
+public class DijkstraBidireccional {
+    private final GrafoCompacto g;
+    private final Frente adelante;
+    private final Frente atras;
+
+    public DijkstraBidireccional(GrafoCompacto g) {
+        this.g = g;
+        this.adelante = new Frente(g.cantidadNodos());
+        this.atras = new Frente(g.cantidadNodos());
+    }
+
+    public Camino buscar(int origen, int destino) {
+        adelante.reiniciar();
+        atras.reiniciar();
+        if (origen < 0 || destino < 0) return Camino.inexistente(0);
+
+        adelante.tocar(origen, 0.0, -1);
+        atras.tocar(destino, 0.0, -1);
+
+        double mejor = origen == destino ? 0.0 : Double.POSITIVE_INFINITY;
+        int encuentro = origen == destino ? origen : -1;
+
+        while (!adelante.cola.estaVacio() && !atras.cola.estaVacio()) {
+            if (adelante.cola.prioridadMinima() + atras.cola.prioridadMinima() >= mejor) break;
+
+            boolean haciaAdelante = adelante.cola.tamanio() <= atras.cola.tamanio();
+            Frente f = haciaAdelante ? adelante : atras;
+            Frente otro = haciaAdelante ? atras : adelante;
+            int[] offs = haciaAdelante ? g.offsets : g.offsetsInv;
+            int[] vecinos = haciaAdelante ? g.destinos : g.origenesInv;
+            double[] pesos = haciaAdelante ? g.pesos : g.pesosInv;
+
+            int u = f.cola.extraerMinimo();
+            f.asentados++;
+            double du = f.distancias[u];
+            for (int e = offs[u]; e < offs[u + 1]; e++) {
+                int v = vecinos[e];
+                double nueva = du + pesos[e];
+                if (nueva < f.distancias[v]) {
+                    f.tocar(v, nueva, u);
+                }
+                double total = f.distancias[v] + otro.distancias[v];
+                if (total < mejor) {
+                    mejor = total;
+                    encuentro = v;
+                }
+            }
+        }
+
+        int explorados = adelante.asentados + atras.asentados;
+        if (encuentro < 0) return Camino.inexistente(explorados);
+
+        // Une la mitad origen→encuentro con la mitad encuentro→destino
+        int[] sucesores = atras.predecesores;
+        Camino mitad = Camino.reconstruir(g, adelante.predecesores, encuentro, mejor, explorados);
+        for (int v = sucesores[encuentro]; v >= 0; v = sucesores[v]) {
+            mitad.ubicaciones.add(g.nombres[v]);
+        }
+        return mitad;
+    }
+
+    // Estado de una de las dos búsquedas
+    private static class Frente {
+        final double[] distancias;
+        final int[] predecesores;
+        final HeapIndexado cola;
+        final int[] tocados;
+        int cantidadTocados;
+        int asentados;
+
+        Frente(int n) {
+            distancias = new double[n];
+            predecesores = new int[n];
+            cola = new HeapIndexado(n);
+            tocados = new int[n];
+            Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecesores, -1);
+        }
+
+        void tocar(int v, double distancia, int predecesor) {
+            if (distancias[v] == Double.POSITIVE_INFINITY) {
+                tocados[cantidadTocados++] = v;
+            }
+            distancias[v] = distancia;
+            predecesores[v] = predecesor;
+            cola.insertarOActualizar(v, distancia);
+        }
+
+        void reiniciar() {
+            for (int i = 0; i < cantidadTocados; i++) {
+                distancias[tocados[i]] = Double.POSITIVE_INFINITY;
+                predecesores[tocados[i]] = -1;
+            }
+            cantidadTocados = 0;
+            asentados = 0;
+            cola.limpiar();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.*;
+
+// Árbol de caminos mínimos desde un origen fijo que se repara a medida que cambia el grafo,
+// al estilo de Ramalingam y Reps. Si una ruta baja de peso o se agrega, se propaga la mejora
+// con un Dijkstra que parte solo de su destino. Si sube de peso o se elimina y era arista del
+// árbol, se invalida el subárbol colgado de ella y se recalcula únicamente esa región a partir
+// de las rutas que entran desde fuera (Ubicacion.entrantes, que mantiene el propio Grafo).
+// El costo depende del tamaño de la zona afectada. Los avisos llegan con el candado del
+// grafo tomado; quien lea desde otro hilo debe tomarlo también (ver CacheRutas).
+public class DistanciasDinamicas implements OyenteGrafo {
+    private final Grafo grafo;
+    private final Ubicacion origen;
+    private final Map<Ubicacion, Integer> ids;
+    private final ArrayDeque<Integer> libres;
+    private Ubicacion[] porId;
+    private double[] distancias;
+    private int[] predecesores;
+    private boolean[] afectado;
+    private HeapIndexado cola;
+    private int siguienteId;
+    private boolean origenEliminado;
+    private int ultimosReparados;
+    private long version; // Versión del grafo que reflejan las distancias
+
+    public DistanciasDinamicas(Grafo grafo, String origen) {
+        this.grafo = grafo;
+        this.origen = grafo.getUbicacion(origen);
+        if (this.origen == null) {
+            throw new IllegalArgumentException("Ubicación no encontrada: " + origen);
+        }
+        this.ids = new IdentityHashMap<>();
+        this.libres = new ArrayDeque<>();
+        // Con el candado del grafo nadie lo modifica entre el cálculo inicial y el alta del oyente
+        synchronized (grafo) {
+            asegurarCapacidad(Math.max(16, grafo.getNombresUbicaciones().size()));
+            for (String nombre : grafo.getNombresUbicaciones()) {
+                registrar(grafo.getUbicacion(nombre));
+            }
+
+            int s = ids.get(this.origen);
+            distancias[s] = 0.0;
+            cola.insertarOActualizar(s, 0.0);
+            propagar();
+            version = grafo.getVersion();
+            grafo.agregarOyente(this);
+        }
+    }
+
+    // El origen puede haberse renombrado o eliminado después de crear el árbol
+    boolean tieneOrigen(String nombre) {
+        return !origenEliminado && origen.nombre.equals(nombre);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public double distancia(String destino) {
+        Ubicacion u = grafo.getUbicacion(destino);
+        Integer id = u == null ? null : ids.get(u);
+        return id == null ? Double.POSITIVE_INFINITY : distancias[id];
+    }
+
+    public Camino camino(String destino) {
+        Ubicacion u = grafo.getUbicacion(destino);
+        Integer id = u == null ? null : ids.get(u);
+        if (id == null || distancias[id] == Double.POSITIVE_INFINITY) return Camino.inexistente(ultimosReparados);
+
+        ArrayList<String> nombres = new ArrayList<>();
+        for (int v = id; v >= 0; v = predecesores[v]) {
+            nombres.add(porId[v].nombre);
+        }
+        Collections.reverse(nombres);
+        return new Camino(nombres, distancias[id], ultimosReparados);
+    }
+
+    public Map<String, Double> comoMapa() {
+        Map<String, Double> mapa = new HashMap<>();
+        for (Map.Entry<Ubicacion, Integer> e : ids.entrySet()) {
+            mapa.put(e.getKey().nombre, distancias[e.getValue()]);
+        }
+        return mapa;
+    }
+
+    // Copia las distancias con los ids de g, que debe ser una instantánea de la misma versión
+    ResultadoDijkstra resultado(GrafoCompacto g) {
+        int n = g.cantidadNodos();
+        double[] d = new double[n];
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            int id = ids.get(grafo.getUbicacion(g.nombres[i]));
+            d[i] = distancias[id];
+            p[i] = predecesores[id] < 0 ? -1 : g.indice(porId[predecesores[id]].nombre);
+        }
+        return new ResultadoDijkstra(g, g.indice(origen.nombre), d, p, ultimosReparados);
+    }
+
+    // Cantidad de nodos asentados de nuevo en la última actualización
+    public int getUltimosReparados() {
+        return ultimosReparados;
+    }
+
+    public void cerrar() {
+        grafo.quitarOyente(this);
+    }
+
+    @Override
+    public void grafoModificado() {
+        version = grafo.getVersion();
+    }
+
+    @Override
+    public void ubicacionAgregada(Ubicacion u) {
+        registrar(u);
+        ultimosReparados = 0;
+    }
+
+    @Override
+    public void ubicacionEliminada(Ubicacion u) {
+        Integer id = ids.get(u);
+        if (id == null) return;
+        if (u == origen) {
+            origenEliminado = true;
+            Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecesores, -1);
+        }
+
+        // Sus rutas entrantes ya se avisaron; las salientes ya no figuran como entrantes de sus destinos
+        ultimosReparados = 0;
+        for (Ruta r : u.rutas) {
+            Integer d = ids.get(r.destino);
+            if (d != null && predecesores[d] == id) reparar(d);
+        }
+
+        ids.remove(u);
+        porId[id] = null;
+        distancias[id] = Double.POSITIVE_INFINITY;
+        predecesores[id] = -1;
+        libres.push(id);
+    }
+
+    @Override
+    public void rutaAgregada(Ubicacion uOrigen, Ruta ruta) {
+        int u = ids.get(uOrigen);
+        int v = ids.get(ruta.destino);
+        ultimosReparados = 0;
+        mejorar(u, v, ruta.peso);
+    }
+
+    // Solo hay mejoras: se relajan todas las rutas nuevas y se propaga una sola vez
+    @Override
+    public void cargaMasiva(List<Ubicacion> nuevas, List<Ruta> rutas) {
+        for (Ubicacion u : nuevas) registrar(u);
+        ultimosReparados = 0;
+        if (origenEliminado) return;
+        for (Ruta r : rutas) {
+            int u = ids.get(r.origen);
+            int v = ids.get(r.destino);
+            double nueva = distancias[u] + r.peso;
+            if (nueva < distancias[v]) {
+                distancias[v] = nueva;
+                predecesores[v] = u;
+                cola.insertarOActualizar(v, nueva);
+            }
+        }
+        propagar();
+    }
+
+    @Override
+    public void rutaEliminada(Ubicacion uOrigen, Ruta ruta) {
+        Integer u = ids.get(uOrigen);
+        Integer v = ids.get(ruta.destino);
+        if (u == null || v == null) return;
+        ultimosReparados = 0;
+        if (predecesores[v] == u) reparar(v);
+    }
+
+    @Override
+    public void rutaModificada(Ubicacion uOrigen, Ruta ruta, double pesoAnterior) {
+        int u = ids.get(uOrigen);
+        int v = ids.get(ruta.destino);
+        ultimosReparados = 0;
+        if (ruta.peso < pesoAnterior) {
+            mejorar(u, v, ruta.peso);
+        } else if (ruta.peso > pesoAnterior && predecesores[v] == u) {
+            reparar(v);
+        }
+    }
+
+    // Una ruta u→v más barata: se propaga la mejora desde v
+    private void mejorar(int u, int v, double peso) {
+        if (origenEliminado) return;
+        double nueva = distancias[u] + peso;
+        if (nueva < distancias[v]) {
+            distancias[v] = nueva;
+            predecesores[v] = u;
+            cola.insertarOActualizar(v, nueva);
+            propagar();
+        }
+    }
+
+    // El nodo v perdió (o encareció) la arista que lo unía al árbol
+    private void reparar(int v) {
+        if (origenEliminado) return;
+
+        // 1. Subárbol afectado: nodos cuyo camino mínimo pasaba por v
+        ArrayList<Integer> zona = new ArrayList<>();
+        zona.add(v);
+        afectado[v] = true;
+        for (int i = 0; i < zona.size(); i++) {
+            int x = zona.get(i);
+            for (Ruta r : porId[x].rutas) {
+                int y = ids.get(r.destino);
+                if (!afectado[y] && predecesores[y] == x) {
+                    afectado[y] = true;
+                    zona.add(y);
+                }
+            }
+        }
+        for (int x : zona) {
+            distancias[x] = Double.POSITIVE_INFINITY;
+            predecesores[x] = -1;
+        }
+
+        // 2. Mejor entrada desde la parte del árbol que no cambió. Una ubicación que se está
+        // eliminando conserva sus entrantes para los oyentes, pero ya no se puede llegar a ella
+        for (int x : zona) {
+            if (grafo.getUbicacion(porId[x].nombre) != porId[x]) continue;
+            for (Ruta r : porId[x].entrantes) {
+                Integer o = ids.get(r.origen);
+                if (o == null || afectado[o]) continue;
+                double nueva = distancias[o] + r.peso;
+                if (nueva < distancias[x]) {
+                    distancias[x] = nueva;
+                    predecesores[x] = o;
+                }
+            }
+            if (distancias[x] < Double.POSITIVE_INFINITY) {
+                cola.insertarOActualizar(x, distancias[x]);
+            }
+        }
+        for (int x : zona) {
+            afectado[x] = false;
+        }
+
+        // 3. Dijkstra restringido: fuera de la zona las distancias no pueden mejorar
+        propagar();
+    }
+
+    private void propagar() {
+        while (!cola.estaVacio()) {
+            int u = cola.extraerMinimo();
+            ultimosReparados++;
+            double du = distancias[u];
+            for (Ruta r : porId[u].rutas) {
+                int v = ids.get(r.destino);
+                double nueva = du + r.peso;
+                if (nueva < distancias[v]) {
+                    distancias[v] = nueva;
+                    predecesores[v] = u;
+                    cola.insertarOActualizar(v, nueva);
+                }
+            }
+        }
+    }
+
+    private void registrar(Ubicacion u) {
+        int id;
+        if (!libres.isEmpty()) {
+            id = libres.pop();
+        } else {
+            id = siguienteId++;
+            asegurarCapacidad(siguienteId);
+        }
+        ids.put(u, id);
+        porId[id] = u;
+        distancias[id] = Double.POSITIVE_INFINITY;
+        predecesores[id] = -1;
+    }
+
+    private void asegurarCapacidad(int minimo) {
+        int actual = porId == null ? 0 : porId.length;
+        if (minimo <= actual) return;
+        int capacidad = Math.max(minimo, actual * 2);
+
+        porId = porId == null ? new Ubicacion[capacidad] : Arrays.copyOf(porId, capacidad);
+        distancias = distancias == null ? new double[capacidad] : Arrays.copyOf(distancias, capacidad);
+        predecesores = predecesores == null ? new int[capacidad] : Arrays.copyOf(predecesores, capacidad);
+        afectado = new boolean[capacidad];
+        cola = new HeapIndexado(capacidad);
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Ejecuta las consultas de análisis fuera del hilo de la interfaz, en un grupo acotado de
+// hilos con una cola de espera también acotada. Cada consulta trabaja sobre la instantánea
+// del grafo vigente cuando empieza, así que ve un estado consistente aunque el usuario
+// siga editando. Dos pedidos iguales (misma clave y misma versión del grafo) mientras el
+// primero no terminó comparten una sola ejecución. El texto y el avance no se entregan
+// línea por línea: se acumulan y se pasan a la interfaz en un solo aviso por vez (con
+// JavaFX, hiloUI es Platform::runLater), y mientras ese aviso espera se siguen sumando.
+public class EjecutorConsultas implements AutoCloseable {
+    // El trabajo de una consulta; debe consultar c.estaCancelada() con frecuencia
+    public interface Tarea {
+        void ejecutar(GrafoCompacto g, Consulta c) throws Exception;
+    }
+
+    // Trabajo que modifica el grafo y no lee la instantánea (p. ej. una importación); antes
+    // de aplicar cambios debe llamar a c.comprometer()
+    public interface Cambio {
+        void ejecutar(Consulta c) throws Exception;
+    }
+
+    private final Grafo grafo;
+    private final ThreadPoolExecutor pool;
+    private final Executor hiloUI;
+    private final Consumer<String> salida;
+    private final Consumer<Consulta> alAvanzar;
+    private final Map<String, Consulta> activas = new ConcurrentHashMap<>();
+    private final StringBuilder pendiente = new StringBuilder(); // Texto que todavía no llegó a la interfaz
+    private final Set<Consulta> conAvance = new LinkedHashSet<>(); // Consultas con avance sin informar
+    private final List<Runnable> acciones = new ArrayList<>();     // Resultados para mostrar en la interfaz
+    private final AtomicBoolean entregaProgramada = new AtomicBoolean();
+
+    // salida recibe el texto acumulado y alAvanzar cada consulta cuyo avance o estado cambió;
+    // ambos se llaman siempre desde hiloUI
+    public EjecutorConsultas(Grafo grafo, int hilos, int capacidadCola, Executor hiloUI,
+                             Consumer<String> salida, Consumer<Consulta> alAvanzar) {
+        if (hilos < 1 || capacidadCola < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo y lugar en la cola");
+        }
+        this.grafo = grafo;
+        this.hiloUI = hiloUI;
+        this.salida = salida;
+        this.alAvanzar = alAvanzar;
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread t = new Thread(r, "consultas-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    // clave identifica el pedido (p. ej. "bfs:Entrada"); si ya hay uno igual en curso para la
+    // misma versión del grafo se devuelve ese en lugar de encolar otro
+    public Consulta enviar(String nombre, String clave, Tarea tarea) {
+        return enviar(nombre, clave, tarea, true);
+    }
+
+    // Como enviar, pero sin armar una instantánea que el cambio no usaría
+    public Consulta enviarCambio(String nombre, String clave, Cambio cambio) {
+        return enviar(nombre, clave, (g, c) -> cambio.ejecutar(c), false);
+    }
+
+    private Consulta enviar(String nombre, String clave, Tarea tarea, boolean conInstantanea) {
+        String completa = clave + "@" + grafo.getVersion();
+        Consulta nueva = new Consulta(nombre, completa);
+        Consulta existente = activas.putIfAbsent(completa, nueva);
+        if (existente != null && !existente.estaCancelada()) return existente;
+        if (existente != null) activas.put(completa, nueva);
+
+        try {
+            nueva.futuro = pool.submit(() -> correr(nueva, tarea, conInstantanea));
+        } catch (RejectedExecutionException ex) {
+            activas.remove(completa, nueva);
+            nueva.terminar(Estado.RECHAZADA);
+            escribir("⚠️ Demasiadas consultas en espera, no se ejecutó: " + nombre + "\n");
+        }
+        return nueva;
+    }
+
+    public void cancelarTodas() {
+        for (Consulta c : activas.values()) c.cancelar();
+    }
+
+    public int cantidadActivas() {
+        return activas.size();
+    }
+
+    @Override
+    public void close() {
+        cancelarTodas();
+        pool.shutdownNow();
+    }
+
+    private void correr(Consulta c, Tarea tarea, boolean conInstantanea) {
+        try {
+            if (c.estaCancelada()) {
+                c.terminar(Estado.CANCELADA);
+                return;
+            }
+            c.estado = Estado.EN_CURSO;
+            informarAvance(c);
+            tarea.ejecutar(conInstantanea ? grafo.compactar() : null, c);
+            c.terminar(c.estaCancelada() ? Estado.CANCELADA : Estado.TERMINADA);
+        } catch (Exception ex) {
+            c.terminar(Estado.FALLIDA);
+            escribir("⚠️ Error en " + c.nombre + ": " + ex.getMessage() + "\n");
+        } finally {
+            activas.remove(c.clave, c);
+            informarAvance(c);
+        }
+    }
+
+    private void escribir(String texto) {
+        synchronized (pendiente) {
+            pendiente.append(texto);
+        }
+        programarEntrega();
+    }
+
+    private void programarAccion(Runnable accion) {
+        synchronized (pendiente) {
+            acciones.add(accion);
+        }
+        programarEntrega();
+    }
+
+    private void informarAvance(Consulta c) {
+        synchronized (pendiente) {
+            conAvance.add(c);
+        }
+        programarEntrega();
+    }
+
+    // Un solo aviso en camino a la vez; lo que llega mientras tanto viaja en el mismo
+    private void programarEntrega() {
+        if (entregaProgramada.compareAndSet(false, true)) hiloUI.execute(this::entregar);
+    }
+
+    private void entregar() {
+        entregaProgramada.set(false);
+        String texto;
+        List<Consulta> avances;
+        List<Runnable> aEjecutar;
+        synchronized (pendiente) {
+            texto = pendiente.toString();
+            pendiente.setLength(0);
+            avances = new ArrayList<>(conAvance);
+            conAvance.clear();
+            aEjecutar = new ArrayList<>(acciones);
+            acciones.clear();
+        }
+        if (!texto.isEmpty()) salida.accept(texto);
+        for (Runnable accion : aEjecutar) accion.run();
+        for (Consulta c : avances) alAvanzar.accept(c);
+    }
+
+    public enum Estado { EN_ESPERA, EN_CURSO, TERMINADA, CANCELADA, FALLIDA, RECHAZADA }
+
+    public final class Consulta {
+        final String nombre;
+        final String clave;
+        private volatile Estado estado = Estado.EN_ESPERA;
+        private volatile boolean cancelada;
+        private boolean comprometida; // Ya empezó a aplicar cambios; protegido por this
+        private volatile double avance;
+        private volatile Future<?> futuro;
+
+        private Consulta(String nombre, String clave) {
+            this.nombre = nombre;
+            this.clave = clave;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        // Fracción entre 0 y 1
+        public double getAvance() {
+            return avance;
+        }
+
+        public boolean estaCancelada() {
+            return cancelada;
+        }
+
+        public boolean estaTerminada() {
+            Estado e = estado;
+            return e != Estado.EN_ESPERA && e != Estado.EN_CURSO;
+        }
+
+        // Si todavía espera en la cola no llega a ejecutarse; si está en curso, la tarea lo
+        // nota en su próxima consulta a estaCancelada(). Una vez comprometida ya no se cancela:
+        // se avisa y sigue hasta el final
+        public void cancelar() {
+            synchronized (this) {
+                if (cancelada || estaTerminada()) return;
+                if (comprometida) {
+                    EjecutorConsultas.this.escribir("⚠️ " + nombre + " ya está aplicando cambios y no se puede cancelar\n");
+                    return;
+                }
+                cancelada = true;
+            }
+            Future<?> f = futuro;
+            if (f != null && f.cancel(false)) {
+                terminar(Estado.CANCELADA);
+                activas.remove(clave, this);
+                informarAvance(this);
+            }
+            EjecutorConsultas.this.escribir("⏹️ Consulta cancelada: " + nombre + "\n");
+        }
+
+        // Marca el punto desde el que la consulta modifica el grafo y ya no se puede cancelar;
+        // false si ya estaba cancelada, y entonces no debe cambiar nada
+        public synchronized boolean comprometer() {
+            if (cancelada) return false;
+            comprometida = true;
+            return true;
+        }
+
+        // Agrega texto al resultado; lo de una consulta cancelada se descarta
+        public void escribir(String texto) {
+            if (!cancelada) EjecutorConsultas.this.escribir(texto);
+        }
+
+        // Ejecuta la acción en el hilo de la interfaz junto con la próxima entrega (p. ej. para
+        // mostrar una tabla de resultados); la de una consulta cancelada se descarta
+        public void enInterfaz(Runnable accion) {
+            if (!cancelada) programarAccion(accion);
+        }
+
+        // Solo se avisa a la interfaz cuando cambia el porcentaje entero
+        public void avanzar(double fraccion) {
+            double nuevo = Math.max(0, Math.min(1, fraccion));
+            int antes = (int) (avance * 100);
+            avance = nuevo;
+            if ((int) (nuevo * 100) != antes) informarAvance(this);
+        }
+
+        private void terminar(Estado e) {
+            if (e == Estado.TERMINADA) avance = 1;
+            estado = e;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+import java.util.List;
+
+// Distancias de un árbol de caminos mínimos, una fila por ubicación
+public class FilasDistancias implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Ubicación", "Distancia");
+
+    private final ResultadoDijkstra r;
+
+    public FilasDistancias(ResultadoDijkstra r) {
+        this.r = r;
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return r.distancias.length;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        if (columna == 0) return r.grafo.nombres[fila];
+        double d = r.distancias[fila];
+        return d == Double.POSITIVE_INFINITY ? "🚫 sin camino" : String.valueOf(d);
+    }
+}
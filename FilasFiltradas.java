@@ -0,0 +1,42 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Vista filtrada de otra fuente: solo guarda los números de fila que coinciden
+public class FilasFiltradas implements FuenteFilas {
+    private final FuenteFilas base;
+    private final int[] filas;
+
+    public FilasFiltradas(FuenteFilas base, String texto) {
+        this.base = base;
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        int columnas = base.columnas().size();
+        int[] encontradas = new int[16];
+        int k = 0;
+        for (int f = 0; f < base.cantidadFilas(); f++) {
+            for (int c = 0; c < columnas; c++) {
+                if (base.valor(f, c).toLowerCase(Locale.ROOT).contains(buscado)) {
+                    if (k == encontradas.length) encontradas = Arrays.copyOf(encontradas, k * 2);
+                    encontradas[k++] = f;
+                    break;
+                }
+            }
+        }
+        this.filas = Arrays.copyOf(encontradas, k);
+    }
+
+    @Override
+    public List<String> columnas() {
+        return base.columnas();
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return filas.length;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        return base.valor(filas[fila], columna);
+    }
+}
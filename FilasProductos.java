@@ -0,0 +1,31 @@
+import java.util.List;
+
+// Claves de producto de una ubicación en orden, una por fila
+public class FilasProductos implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Clave");
+
+    private final int[] claves;
+
+    public FilasProductos(AlmacenProductos productos) {
+        this(productos.claves());
+    }
+
+    public FilasProductos(int[] claves) {
+        this.claves = claves;
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return claves.length;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        return String.valueOf(claves[fila]);
+    }
+}
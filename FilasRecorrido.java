@@ -0,0 +1,34 @@
+import java.util.List;
+
+// Orden de visita de un recorrido (BFS o DFS), una fila por ubicación alcanzada
+public class FilasRecorrido implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Orden", "Ubicación", "Profundidad");
+
+    private final GrafoCompacto g;
+    private final int[] nodos;
+    private final int[] profundidades;
+    private final int cantidad;
+
+    public FilasRecorrido(GrafoCompacto g, int[] nodos, int[] profundidades, int cantidad) {
+        this.g = g;
+        this.nodos = nodos;
+        this.profundidades = profundidades;
+        this.cantidad = cantidad;
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return cantidad;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        if (columna == 0) return String.valueOf(fila + 1);
+        return columna == 1 ? g.nombres[nodos[fila]] : String.valueOf(profundidades[fila]);
+    }
+}
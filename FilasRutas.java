@@ -0,0 +1,38 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Mapa del almacén como filas (ubicación, destino, distancia) leídas de la instantánea:
+// una fila por ruta y una sola para cada ubicación sin rutas salientes
+public class FilasRutas implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Ubicación", "Destino", "Distancia");
+
+    private final GrafoCompacto g;
+    private final int[] inicios; // Las filas de la ubicación u son inicios[u] .. inicios[u + 1] - 1
+
+    public FilasRutas(GrafoCompacto g) {
+        this.g = g;
+        int n = g.cantidadNodos();
+        this.inicios = new int[n + 1];
+        for (int u = 0; u < n; u++) inicios[u + 1] = inicios[u] + Math.max(1, g.gradoSalida(u));
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return inicios[inicios.length - 1];
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        int p = Arrays.binarySearch(inicios, fila); // Estrictamente creciente: cada ubicación tiene al menos una fila
+        int u = p >= 0 ? p : -p - 2;
+        if (columna == 0) return g.nombres[u];
+        if (g.gradoSalida(u) == 0) return columna == 1 ? "🚫 sin conexiones" : "";
+        int e = g.offsets[u] + fila - inicios[u];
+        return columna == 1 ? g.nombres[g.destinos[e]] : String.valueOf(g.pesos[e]);
+    }
+}
@@ -0,0 +1,29 @@
+import java.util.List;
+
+// Lista simple de ubicaciones de la instantánea, una por fila
+public class FilasUbicaciones implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Ubicación");
+
+    private final GrafoCompacto g;
+    private final int[] ids;
+
+    public FilasUbicaciones(GrafoCompacto g, int[] ids) {
+        this.g = g;
+        this.ids = ids;
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return ids.length;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        return g.nombres[ids[fila]];
+    }
+}
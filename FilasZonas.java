@@ -0,0 +1,47 @@
+import java.util.List;
+
+// Zonas conectadas de la instantánea, una fila por ubicación agrupadas por zona
+public class FilasZonas implements FuenteFilas {
+    private static final List<String> COLUMNAS = List.of("Zona", "Ubicación", "Ubicaciones en la zona");
+
+    private final GrafoCompacto g;
+    private final int[] zona;
+    private final int[] tamanios;
+    private final int[] orden; // Ids ordenados por zona, conservando el orden de id dentro de cada una
+
+    public FilasZonas(GrafoCompacto g, int[] zona) {
+        this.g = g;
+        this.zona = zona;
+        int zonas = 0;
+        for (int z : zona) zonas = Math.max(zonas, z + 1);
+        this.tamanios = new int[zonas];
+        for (int z : zona) tamanios[z]++;
+
+        // Ordenamiento por conteo: inicio[z] es la primera fila de la zona z
+        int[] inicio = new int[zonas + 1];
+        for (int z = 0; z < zonas; z++) inicio[z + 1] = inicio[z] + tamanios[z];
+        this.orden = new int[zona.length];
+        for (int v = 0; v < zona.length; v++) orden[inicio[zona[v]]++] = v;
+    }
+
+    public int cantidadZonas() {
+        return tamanios.length;
+    }
+
+    @Override
+    public List<String> columnas() {
+        return COLUMNAS;
+    }
+
+    @Override
+    public int cantidadFilas() {
+        return orden.length;
+    }
+
+    @Override
+    public String valor(int fila, int columna) {
+        int v = orden[fila];
+        if (columna == 0) return String.valueOf(zona[v] + 1);
+        return columna == 1 ? g.nombres[v] : String.valueOf(tamanios[zona[v]]);
+    }
+}
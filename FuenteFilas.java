@@ -0,0 +1,16 @@
+import java.util.List;
+
+// Resultado en forma de tabla que se lee celda por celda a demanda: nadie arma el texto
+// completo, y la tabla de MainApp solo pide las celdas de las filas visibles
+public interface FuenteFilas {
+    List<String> columnas();
+
+    int cantidadFilas();
+
+    String valor(int fila, int columna);
+
+    // Filas que contienen el texto en alguna columna, sin distinguir mayúsculas
+    default FuenteFilas filtrar(String texto) {
+        return texto.isBlank() ? this : new FilasFiltradas(this, texto);
+    }
+}
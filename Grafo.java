@@ -1,229 +1,644 @@
 import java.util.*;
+import java.util.function.Consumer;
 
+// Los métodos que modifican el grafo están sincronizados: los escritores se ejecutan de a uno.
+// En modo concurrente, tras cada modificación (o al final de cada lote) se publica una
+// instantánea GrafoCompacto inmutable que cualquier hilo puede leer sin candados con
+// instantanea(); el resto de los métodos de lectura son para el hilo que edita el grafo.
 public class Grafo {
+    private static final int INTENTOS_CARGA = 3; // Preparaciones de una carga masiva antes de hacerla con el candado
+
     private Map<String, Ubicacion> ubicaciones;
+    private List<OyenteGrafo> oyentes;
+    private volatile long version; // Aumenta con cada modificación de ubicaciones o rutas
+    private GrafoCompacto compacto;
+    private long versionCompacto = -1;
+    private InstantaneaZonas zonasCompactas;  // Zonas de la instantánea compacto, o null
+    private IndiceInventario inventario; // Clave de producto → ubicaciones
+    private boolean modoConcurrente;
+    private int profundidadLote;
+    private volatile GrafoCompacto publicado; // Última instantánea publicada para los lectores
+    private final ZonasConexas zonas;          // Oyente propio: zonas conectadas y ubicaciones aisladas
 
     public Grafo() {
         this.ubicaciones = new HashMap<>();
+        this.oyentes = new ArrayList<>();
+        this.version = 0;
+        this.inventario = new IndiceInventario();
+        this.zonas = new ZonasConexas(ubicaciones.values());
+        this.oyentes.add(zonas);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized void agregarOyente(OyenteGrafo oyente) {
+        oyentes.add(oyente);
+    }
+
+    public synchronized void quitarOyente(OyenteGrafo oyente) {
+        oyentes.remove(oyente);
+    }
+
+    private void notificarCambio(Consumer<OyenteGrafo> aviso) {
+        version++;
+        for (OyenteGrafo o : oyentes) {
+            aviso.accept(o);
+            o.grafoModificado();
+        }
+        if (modoConcurrente && profundidadLote == 0) publicado = compactar();
+    }
+
+    // A partir de aquí cada modificación publica una instantánea para los hilos lectores
+    public synchronized void activarModoConcurrente() {
+        modoConcurrente = true;
+        publicado = compactar();
+    }
+
+    public boolean esModoConcurrente() {
+        return publicado != null;
+    }
+
+    // Instantánea inmutable más reciente; segura desde cualquier hilo y sin candados
+    public GrafoCompacto instantanea() {
+        GrafoCompacto g = publicado;
+        if (g == null) throw new IllegalStateException("El modo concurrente no está activado");
+        return g;
+    }
+
+    // Aplica varias modificaciones como una sola: los lectores ven el estado anterior o el
+    // final, nunca uno intermedio, y la instantánea se reconstruye una única vez
+    public synchronized void enLote(Runnable cambios) {
+        long versionInicial = version;
+        profundidadLote++;
+        try {
+            cambios.run();
+        } finally {
+            profundidadLote--;
+            if (modoConcurrente && profundidadLote == 0 && version != versionInicial) {
+                publicado = compactar();
+            }
+        }
     }
 
-    public void agregarUbicacion(String nombre) {
+    public synchronized void agregarUbicacion(String nombre) {
         if (!ubicaciones.containsKey(nombre)) {
-            ubicaciones.put(nombre, new Ubicacion(nombre));
+            Ubicacion u = new Ubicacion(nombre);
+            u.productos.vincular(inventario, u);
+            ubicaciones.put(nombre, u);
+            notificarCambio(o -> o.ubicacionAgregada(u));
         }
     }
 
-    public void agregarRuta(String origen, String destino, double peso) {
+    public synchronized void agregarRuta(String origen, String destino, double peso) {
         Ubicacion uOrigen = ubicaciones.get(origen);
         Ubicacion uDestino = ubicaciones.get(destino);
         if (uOrigen != null && uDestino != null) {
-            uOrigen.rutas.add(new Ruta(uDestino, peso));
+            Ruta r = new Ruta(uOrigen, uDestino, peso);
+            enlazar(r);
+            notificarCambio(o -> o.rutaAgregada(uOrigen, r));
         }
     }
 
-    public String mostrarGrafo() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("📌 Mapa del Almacén:\n");
-        for (Ubicacion u : ubicaciones.values()) {
-            sb.append("📦 ").append(u.nombre).append(" ➝ ");
-            if (u.rutas.isEmpty()) {
-                sb.append("🚫 sin conexiones");
-            } else {
-                for (Ruta r : u.rutas) {
-                    sb.append("➡ ").append(r.destino.nombre).append(" (").append(r.peso).append(")  ");
-                }
-            }
-            sb.append("\n");
+    private static void enlazar(Ruta r) {
+        enlazarSalida(r);
+        enlazarEntrada(r);
+    }
+
+    private static void enlazarSalida(Ruta r) {
+        r.origen.rutas.add(r);
+        List<Ruta> paralelas = r.origen.porDestino.get(r.destino);
+        if (paralelas == null) {
+            r.origen.porDestino.put(r.destino, List.of(r));
+        } else {
+            List<Ruta> ampliada = new ArrayList<>(paralelas);
+            ampliada.add(r);
+            r.origen.porDestino.put(r.destino, ampliada);
         }
-        return sb.toString();
     }
 
-    public Ubicacion getUbicacion(String nombre) {
-        return ubicaciones.get(nombre);
+    private static void enlazarEntrada(Ruta r) {
+        r.destino.entrantes.add(r);
     }
 
-    public Set<String> getNombresUbicaciones() {
-        return ubicaciones.keySet();
+    // Alta masiva usada por ImportadorAlmacen. Crea las ubicaciones de nombres que falten,
+    // asigna las coordenadas que no sean NaN y agrega las rutas dadas por índice en nombres.
+    // Las listas de adyacencia se reservan de una vez y los oyentes reciben un solo
+    // cargaMasiva en lugar de un aviso por elemento. Devuelve la ubicación de cada nombre.
+    // almacenes[i] y existencias[i] (null si no hay) son el inventario de nombres[i], armado sin
+    // vincular fuera del candado: una ubicación nueva los adopta tal cual y una existente los
+    // suma a los suyos, así el inventario aparece junto con el plano y en la misma versión.
+    // Lo pesado se prepara sin el candado (ver preparar) y con él solo se instala; si el grafo
+    // cambió en el medio se prepara de nuevo, y tras INTENTOS_CARGA se prepara con el candado.
+    Ubicacion[] cargarMasivo(String[] nombres, double[] xs, double[] ys,
+                             int[] origenes, int[] destinos, double[] pesos,
+                             AlmacenProductos[] almacenes, CantidadesProductos[] existencias) {
+        for (int intento = 1; intento < INTENTOS_CARGA; intento++) {
+            CargaPreparada c = preparar(nombres, xs, ys, origenes, destinos, pesos, almacenes, existencias);
+            synchronized (this) {
+                if (version == c.version) return instalar(c);
+            }
+        }
+        synchronized (this) {
+            return instalar(preparar(nombres, xs, ys, origenes, destinos, pesos, almacenes, existencias));
+        }
     }
 
-    public String bfs(String inicio) {
-        StringBuilder recorrido = new StringBuilder("🔍 BFS desde '" + inicio + "':\n");
-        Set<String> visitado = new HashSet<>();
-        Queue<String> cola = new LinkedList<>();
-
-        cola.add(inicio);
-        visitado.add(inicio);
-
-        while (!cola.isEmpty()) {
-            String actual = cola.poll();
-            recorrido.append("📦 ").append(actual).append(" ➝ ");
-
-            for (Ruta r : ubicaciones.get(actual).rutas) {
-                String vecino = r.destino.nombre;
-                if (!visitado.contains(vecino)) {
-                    visitado.add(vecino);
-                    cola.add(vecino);
+    // Con el candado solo se busca qué nombres ya existen. Lo demás no toca nada compartido:
+    // las ubicaciones nuevas se crean con sus coordenadas e inventario, se crean todas las
+    // rutas y se enlazan del lado de las ubicaciones nuevas, que nadie más ve todavía
+    private CargaPreparada preparar(String[] nombres, double[] xs, double[] ys,
+                                    int[] origenes, int[] destinos, double[] pesos,
+                                    AlmacenProductos[] almacenes, CantidadesProductos[] existencias) {
+        int n = nombres.length;
+        CargaPreparada c = new CargaPreparada(n, xs, ys, almacenes, existencias);
+        synchronized (this) {
+            c.version = version;
+            for (int i = 0; i < n; i++) c.us[i] = ubicaciones.get(nombres[i]);
+        }
+        Map<String, Ubicacion> creadas = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (c.us[i] != null) {
+                c.existia[i] = true;
+                continue;
+            }
+            Ubicacion u = creadas.get(nombres[i]);
+            if (u != null) {
+                // Nombre repetido: desde la segunda vez se trata como una ubicación existente
+                c.us[i] = u;
+                c.existia[i] = true;
+                continue;
+            }
+            u = new Ubicacion(nombres[i]);
+            if (!Double.isNaN(xs[i])) {
+                u.x = xs[i];
+                u.y = ys[i];
+            }
+            if (almacenes[i] != null) {
+                u.productos = almacenes[i];
+                if (existencias[i] != null) u.asignarExistencias(existencias[i]);
+            }
+            creadas.put(nombres[i], u);
+            c.us[i] = u;
+        }
+
+        for (int e = 0; e < origenes.length; e++) {
+            c.salida[origenes[e]]++;
+            c.entrada[destinos[e]]++;
+        }
+        for (int i = 0; i < n; i++) {
+            if (c.existia[i]) continue;
+            if (c.salida[i] > 0) c.us[i].rutas = new ArrayList<>(c.salida[i]);
+            if (c.entrada[i] > 0) c.us[i].entrantes = new ArrayList<>(c.entrada[i]);
+        }
+        c.origenes = origenes;
+        c.destinos = destinos;
+        c.rutas = new Ruta[origenes.length];
+        for (int e = 0; e < origenes.length; e++) {
+            Ruta r = new Ruta(c.us[origenes[e]], c.us[destinos[e]], pesos[e]);
+            if (!c.existia[origenes[e]]) enlazarSalida(r);
+            if (!c.existia[destinos[e]]) enlazarEntrada(r);
+            c.rutas[e] = r;
+        }
+        return c;
+    }
+
+    // Con el candado y la misma versión con que se preparó: agrega las ubicaciones nuevas al
+    // mapa y al índice de inventario, completa las existentes y enlaza en ellas sus rutas
+    private Ubicacion[] instalar(CargaPreparada c) {
+        List<Ubicacion> nuevas = new ArrayList<>();
+        List<Ubicacion> movidas = new ArrayList<>();
+        for (int i = 0; i < c.us.length; i++) {
+            Ubicacion u = c.us[i];
+            if (!c.existia[i]) {
+                ubicaciones.put(u.nombre, u);
+                if (c.almacenes[i] != null) {
+                    for (int clave : u.productos.claves()) inventario.agregar(clave, u);
                 }
+                u.productos.vincular(inventario, u);
+                nuevas.add(u);
+                continue;
             }
-            recorrido.append("\n");
+            if (!Double.isNaN(c.xs[i])) {
+                u.x = c.xs[i];
+                u.y = c.ys[i];
+                movidas.add(u);
+            }
+            if (c.almacenes[i] != null) sumarInventario(u, c.almacenes[i], c.existencias[i]);
+            if (u.rutas.isEmpty() && c.salida[i] > 0) u.rutas = new ArrayList<>(c.salida[i]);
+            if (u.entrantes.isEmpty() && c.entrada[i] > 0) u.entrantes = new ArrayList<>(c.entrada[i]);
+        }
+        for (int e = 0; e < c.rutas.length; e++) {
+            if (c.existia[c.origenes[e]]) enlazarSalida(c.rutas[e]);
+            if (c.existia[c.destinos[e]]) enlazarEntrada(c.rutas[e]);
         }
-        return recorrido.toString();
+
+        List<Ruta> agregadas = Arrays.asList(c.rutas);
+        notificarCambio(o -> {
+            o.cargaMasiva(nuevas, agregadas);
+            for (Ubicacion u : movidas) o.ubicacionMovida(u);
+        });
+        return c.us;
     }
 
-    public String dfs(String inicio) {
-        StringBuilder recorrido = new StringBuilder("🔍 DFS desde '" + inicio + "':\n");
-        Set<String> visitado = new HashSet<>();
-        dfsRec(inicio, visitado, recorrido);
-        return recorrido.toString();
+    private void sumarInventario(Ubicacion u, AlmacenProductos almacen, CantidadesProductos cantidades) {
+        u.productos.insertarTodos(almacen.claves());
+        if (cantidades == null) return;
+        CantidadesProductos e = u.existencias();
+        for (int clave : cantidades.claves()) e.ajustar(clave, cantidades.disponible(clave));
     }
 
-    private void dfsRec(String actual, Set<String> visitado, StringBuilder recorrido) {
-        visitado.add(actual);
-        recorrido.append("📦 ").append(actual).append(" ➝ ");
+    // Lo que preparar deja listo para instalar
+    private static final class CargaPreparada {
+        final Ubicacion[] us;
+        final boolean[] existia; // Ya estaba en el grafo o apareció antes en nombres
+        final int[] salida;
+        final int[] entrada;
+        final double[] xs, ys;
+        final AlmacenProductos[] almacenes;
+        final CantidadesProductos[] existencias;
+        long version;            // Versión del grafo cuando se buscaron los nombres
+        int[] origenes, destinos;
+        Ruta[] rutas;
+
+        CargaPreparada(int n, double[] xs, double[] ys, AlmacenProductos[] almacenes,
+                       CantidadesProductos[] existencias) {
+            this.us = new Ubicacion[n];
+            this.existia = new boolean[n];
+            this.salida = new int[n];
+            this.entrada = new int[n];
+            this.xs = xs;
+            this.ys = ys;
+            this.almacenes = almacenes;
+            this.existencias = existencias;
+        }
+    }
 
-        for (Ruta r : ubicaciones.get(actual).rutas) {
-            String vecino = r.destino.nombre;
-            if (!visitado.contains(vecino)) {
-                dfsRec(vecino, visitado, recorrido);
-            }
+    public synchronized void asignarCoordenadas(String nombre, double x, double y) {
+        Ubicacion u = ubicaciones.get(nombre);
+        if (u != null) {
+            u.x = x;
+            u.y = y;
+            notificarCambio(o -> o.ubicacionMovida(u));
         }
-        recorrido.append("\n");
     }
 
-    public boolean hayCiclo() {
-        Set<String> visitado = new HashSet<>();
-        Set<String> enRecursion = new HashSet<>();
+    // Primera ubicación que guarda el producto, o null; O(1) gracias al índice global
+    public Ubicacion buscarProducto(int clave) {
+        return inventario.buscar(clave);
+    }
+
+    public List<Ubicacion> ubicacionesDeProducto(int clave) {
+        return inventario.ubicacionesDe(clave);
+    }
 
-        for (String nodo : ubicaciones.keySet()) {
-            if (hayCicloDFS(nodo, visitado, enRecursion)) {
-                return true;
+    // Elimina el producto de la primera ubicación que lo guarda; devuelve esa ubicación o null
+    public synchronized Ubicacion eliminarProducto(int clave) {
+        Ubicacion u = inventario.buscar(clave);
+        if (u != null && u.productos.eliminar(clave)) {
+            return u;
+        }
+        return null;
+    }
+
+    // Las k ubicaciones más cercanas a desde que guardan el producto, en orden de distancia.
+    // El índice de inventario dice cuáles son; Dijkstra se detiene al asentar la k-ésima,
+    // así la consulta solo explora la zona cercana al preparador. Con el candado solo se toman
+    // la instantánea y los ids de destino; Dijkstra corre fuera con el motor del hilo.
+    public List<Camino> existenciasMasCercanas(String desde, int clave, int k) {
+        List<Camino> resultado = new ArrayList<>();
+        GrafoCompacto g;
+        int origen;
+        int[] objetivos;
+        synchronized (this) {
+            g = compactar();
+            origen = g.indice(desde);
+            List<Ubicacion> conProducto = inventario.ubicacionesDe(clave);
+            if (origen < 0 || conProducto.isEmpty() || k <= 0) return resultado;
+            objetivos = new int[conProducto.size()];
+            for (int i = 0; i < objetivos.length; i++) {
+                objetivos[i] = g.indice(conProducto.get(i).nombre);
             }
         }
-        return false;
+        Arrays.sort(objetivos);
+
+        MotorDijkstra motor = MotorDijkstra.para(g);
+        int[] encontrados = new int[Math.min(k, objetivos.length)];
+        int n = motor.ejecutarHasta(origen, v -> Arrays.binarySearch(objetivos, v) >= 0,
+                encontrados.length, encontrados);
+        for (int i = 0; i < n; i++) {
+            resultado.add(motor.camino(encontrados[i]));
+        }
+        return resultado;
     }
 
-    private boolean hayCicloDFS(String actual, Set<String> visitado, Set<String> enRecursion) {
-        if (enRecursion.contains(actual)) return true;
-        if (visitado.contains(actual)) return false;
+    // Orden de visita de las paradas de un pedido desde inicio, mejorado durante a lo sumo
+    // presupuestoMs; las paradas sin acceso se informan en el resultado
+    public Recorrido planificarRecorrido(String inicio, Collection<String> paradas, boolean volverAlInicio,
+                                         long presupuestoMs) {
+        return new PlanificadorRecorrido(compactar()).planificar(inicio, paradas, volverAlInicio, presupuestoMs);
+    }
 
-        visitado.add(actual);
-        enRecursion.add(actual);
+    public Camino existenciaMasCercana(String desde, int clave) {
+        List<Camino> caminos = existenciasMasCercanas(desde, clave, 1);
+        return caminos.isEmpty() ? Camino.inexistente(0) : caminos.get(0);
+    }
 
-        for (Ruta r : ubicaciones.get(actual).rutas) {
-            if (hayCicloDFS(r.destino.nombre, visitado, enRecursion)) {
-                return true;
-            }
-        }
+    // La interfaz modifica y lee el inventario por aquí, con el candado que también toma la carga masiva
+    public synchronized boolean insertarProducto(String nombre, int clave) {
+        Ubicacion u = ubicaciones.get(nombre);
+        if (u == null) return false;
+        u.productos.insertar(clave);
+        return true;
+    }
 
-        enRecursion.remove(actual);
-        return false;
+    // Claves de la ubicación en orden; null si no existe
+    public synchronized int[] productosDe(String nombre) {
+        Ubicacion u = ubicaciones.get(nombre);
+        return u == null ? null : u.productos.claves();
     }
 
-    public List<Set<String>> componentesConexas() {
-        Set<String> visitado = new HashSet<>();
-        List<Set<String>> componentes = new ArrayList<>();
+    // Claves de la ubicación entre desde y hasta (inclusive), en orden; null si no existe
+    public synchronized int[] productosEnRango(String nombre, int desde, int hasta) {
+        Ubicacion u = ubicaciones.get(nombre);
+        return u == null ? null : u.productos.clavesEnRango(desde, hasta);
+    }
 
-        for (String nodo : ubicaciones.keySet()) {
-            if (!visitado.contains(nodo)) {
-                Set<String> componente = new HashSet<>();
-                componenteBidireccionalDFS(nodo, componente, visitado);
-                componentes.add(componente);
-            }
-        }
-        return componentes;
+    // Pasa la ubicación a un árbol B+, que lee solo las hojas de un rango, si no lo usa ya;
+    // false si no existe
+    public synchronized boolean usarArbolBMas(String nombre) {
+        Ubicacion u = ubicaciones.get(nombre);
+        if (u == null) return false;
+        if (!(u.productos instanceof BPlusTree)) cambiarAlmacen(nombre, new BPlusTree());
+        return true;
     }
 
-    private void componenteBidireccionalDFS(String actual, Set<String> componente, Set<String> visitado) {
-        visitado.add(actual);
-        componente.add(actual);
+    // Cambia la estructura que guarda los productos de una ubicación conservando sus claves
+    public synchronized void cambiarAlmacen(String nombre, AlmacenProductos nuevo) {
+        Ubicacion u = ubicaciones.get(nombre);
+        if (u == null || u.productos == nuevo) return;
 
-        // Ver rutas salientes
-        for (Ruta r : ubicaciones.get(actual).rutas) {
-            String vecino = r.destino.nombre;
-            if (!visitado.contains(vecino)) {
-                componenteBidireccionalDFS(vecino, componente, visitado);
-            }
+        int[] claves = u.productos.claves();
+        for (int clave : claves) {
+            inventario.quitar(clave, u);
         }
+        u.productos.vincular(null, null);
 
-        // Ver rutas entrantes
-        for (Map.Entry<String, Ubicacion> entry : ubicaciones.entrySet()) {
-            String posibleOrigen = entry.getKey();
-            Ubicacion u = entry.getValue();
-            for (Ruta r : u.rutas) {
-                if (r.destino.nombre.equals(actual) && !visitado.contains(posibleOrigen)) {
-                    componenteBidireccionalDFS(posibleOrigen, componente, visitado);
+        nuevo.insertarTodos(claves);
+        for (int clave : nuevo.claves()) {
+            inventario.agregar(clave, u);
+        }
+        nuevo.vincular(inventario, u);
+        u.productos = nuevo;
+    }
+
+    // Ubicaciones que guardan todas las claves pedidas: parte de la clave con menos
+    // ubicaciones según el índice y descarta las que no tienen el resto
+    public List<Ubicacion> ubicacionesConTodos(int... claves) {
+        if (claves.length == 0) return new ArrayList<>();
+        List<Ubicacion> candidatas = null;
+        for (int clave : claves) {
+            List<Ubicacion> l = inventario.ubicacionesDe(clave);
+            if (candidatas == null || l.size() < candidatas.size()) candidatas = l;
+        }
+        List<Ubicacion> resultado = new ArrayList<>();
+        for (Ubicacion u : candidatas) {
+            boolean todas = true;
+            for (int clave : claves) {
+                if (!u.productos.buscar(clave)) {
+                    todas = false;
+                    break;
                 }
             }
+            if (todas) resultado.add(u);
         }
+        return resultado;
     }
 
-    public List<String> zonasAisladas() {
-        List<String> aisladas = new ArrayList<>();
+    // Productos presentes en al menos una de las ubicaciones
+    public synchronized MapaBitsProductos unionProductos(Collection<String> nombres) {
+        MapaBitsProductos r = new MapaBitsProductos();
+        for (String nombre : nombres) {
+            Ubicacion u = ubicaciones.get(nombre);
+            if (u != null) r = r.unir(MapaBitsProductos.de(u.productos));
+        }
+        return r;
+    }
 
-        Map<String, Integer> entradas = new HashMap<>();
-        for (String nombre : ubicaciones.keySet()) {
-            entradas.put(nombre, 0);
+    // Productos presentes en todas las ubicaciones
+    public synchronized MapaBitsProductos interseccionProductos(Collection<String> nombres) {
+        MapaBitsProductos r = null;
+        for (String nombre : nombres) {
+            Ubicacion u = ubicaciones.get(nombre);
+            MapaBitsProductos m = u == null ? new MapaBitsProductos() : MapaBitsProductos.de(u.productos);
+            r = r == null ? m.copia() : r.intersectar(m);
+            if (r.cantidadClaves() == 0) break;
         }
+        return r == null ? new MapaBitsProductos() : r;
+    }
 
+    public synchronized String mostrarGrafo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("📌 Mapa del Almacén:\n");
         for (Ubicacion u : ubicaciones.values()) {
-            for (Ruta r : u.rutas) {
-                entradas.put(r.destino.nombre, entradas.getOrDefault(r.destino.nombre, 0) + 1);
+            sb.append("📦 ").append(u.nombre).append(" ➝ ");
+            if (u.rutas.isEmpty()) {
+                sb.append("🚫 sin conexiones");
+            } else {
+                for (Ruta r : u.rutas) {
+                    sb.append("➡ ").append(r.destino.nombre).append(" (").append(r.peso).append(")  ");
+                }
             }
+            sb.append("\n");
         }
+        return sb.toString();
+    }
 
-        for (String nombre : ubicaciones.keySet()) {
-            Ubicacion u = ubicaciones.get(nombre);
-            if (u.rutas.isEmpty() && entradas.get(nombre) == 0) {
-                aisladas.add(nombre);
+    // Con el candado, porque una importación agrega ubicaciones desde otro hilo
+    public synchronized Ubicacion getUbicacion(String nombre) {
+        return ubicaciones.get(nombre);
+    }
+
+    // Copia en el orden del mapa
+    public synchronized Set<String> getNombresUbicaciones() {
+        return new LinkedHashSet<>(ubicaciones.keySet());
+    }
+
+    // Instantánea CSR usada por los algoritmos de solo lectura; se reutiliza mientras la versión no cambie
+    public synchronized GrafoCompacto compactar() {
+        if (compacto == null || versionCompacto != version) {
+            compacto = new GrafoCompacto(ubicaciones.values(), version);
+            versionCompacto = version;
+        }
+        return compacto;
+    }
+
+    // Motor de recorridos del hilo actual sobre la instantánea actual; se reutiliza mientras el grafo no cambie
+    public MotorRecorrido motorRecorrido() {
+        return MotorRecorrido.para(compactar());
+    }
+
+    public boolean recorrerAnchura(String inicio, VisitanteRecorrido visitante) {
+        MotorRecorrido motor = motorRecorrido();
+        return motor.anchura(motor.getGrafo().indice(inicio), visitante);
+    }
+
+    public boolean recorrerProfundidad(String inicio, VisitanteRecorrido visitante) {
+        MotorRecorrido motor = motorRecorrido();
+        return motor.profundidad(motor.getGrafo().indice(inicio), visitante);
+    }
+
+    public String bfs(String inicio) {
+        MotorRecorrido motor = motorRecorrido();
+        TextoRecorrido texto = new TextoRecorrido(motor.getGrafo(), "🔍 BFS desde '" + inicio + "':\n");
+        motor.anchura(motor.getGrafo().indice(inicio), texto);
+        return texto.toString();
+    }
+
+    public String dfs(String inicio) {
+        MotorRecorrido motor = motorRecorrido();
+        TextoRecorrido texto = new TextoRecorrido(motor.getGrafo(), "🔍 DFS desde '" + inicio + "':\n");
+        motor.profundidad(motor.getGrafo().indice(inicio), texto);
+        return texto.toString();
+    }
+
+    // Hay ciclo si algún recorrido en profundidad encuentra una arista de retroceso; se corta en la primera
+    public boolean hayCiclo() {
+        VisitanteRecorrido buscaRetroceso = new VisitanteRecorrido() {
+            @Override
+            public boolean arista(int origen, int destino, int tipo) {
+                return tipo != MotorRecorrido.ARISTA_RETROCESO;
             }
+        };
+        return !motorRecorrido().profundidadCompleta(buscaRetroceso);
+    }
+
+    // Componentes débilmente conexas, mantenidas con unión-búsqueda a medida que cambia el grafo
+    public synchronized List<Set<String>> componentesConexas() {
+        return zonas.componentes();
+    }
+
+    // Zonas y aisladas de la estructura incremental con la instantánea de su misma versión;
+    // se guarda hasta el próximo cambio, así que repetir la consulta no recorre nada
+    public synchronized InstantaneaZonas instantaneaZonas() {
+        GrafoCompacto g = compactar();
+        if (zonasCompactas == null || zonasCompactas.grafo != g) {
+            int[] zona = zonas.zonaPorPosicion();
+            int[] aisladas = new int[zonas.aisladas().size()];
+            int k = 0;
+            for (Ubicacion u : zonas.aisladas()) aisladas[k++] = g.indice(u.nombre);
+            Arrays.sort(aisladas);
+            zonasCompactas = new InstantaneaZonas(g, zona, zonas.cantidadZonas(), aisladas);
         }
+        return zonasCompactas;
+    }
+
+    public synchronized int cantidadZonas() {
+        return zonas.cantidadZonas();
+    }
+
+    public synchronized boolean mismaZona(String a, String b) {
+        Ubicacion ua = ubicaciones.get(a);
+        Ubicacion ub = ubicaciones.get(b);
+        return ua != null && ub != null && zonas.mismaZona(ua, ub);
+    }
 
+    // Ubicaciones sin rutas de entrada ni de salida
+    public synchronized List<String> zonasAisladas() {
+        List<String> aisladas = new ArrayList<>();
+        for (Ubicacion u : zonas.aisladas()) {
+            aisladas.add(u.nombre);
+        }
         return aisladas;
     }
 
-    public void eliminarRuta(String origen, String destino) {
+    public synchronized int cantidadAisladas() {
+        return zonas.aisladas().size();
+    }
+
+    public synchronized boolean esAislada(String nombre) {
+        Ubicacion u = ubicaciones.get(nombre);
+        return u != null && zonas.aisladas().contains(u);
+    }
+
+    public synchronized int gradoSalida(String nombre) {
+        Ubicacion u = ubicaciones.get(nombre);
+        return u == null ? 0 : u.rutas.size();
+    }
+
+    public synchronized int gradoEntrada(String nombre) {
+        Ubicacion u = ubicaciones.get(nombre);
+        return u == null ? 0 : u.entrantes.size();
+    }
+
+    public synchronized void eliminarRuta(String origen, String destino) {
         Ubicacion uOrigen = ubicaciones.get(origen);
-        if (uOrigen != null) {
-            uOrigen.rutas.removeIf(ruta -> ruta.destino.nombre.equals(destino));
+        Ubicacion uDestino = ubicaciones.get(destino);
+        if (uOrigen == null || uDestino == null) return;
+
+        List<Ruta> eliminadas = uOrigen.porDestino.remove(uDestino);
+        if (eliminadas == null) return;
+        for (Ruta r : eliminadas) {
+            uOrigen.rutas.remove(r);
+            uDestino.entrantes.remove(r);
         }
+        notificarCambio(o -> {
+            for (Ruta r : eliminadas) o.rutaEliminada(uOrigen, r);
+        });
     }
 
-    public void eliminarUbicacion(String nombre) {
-        ubicaciones.remove(nombre);
+    public synchronized void eliminarUbicacion(String nombre) {
+        Ubicacion eliminada = ubicaciones.remove(nombre);
+        if (eliminada == null) return;
 
-        for (Ubicacion u : ubicaciones.values()) {
-            u.rutas.removeIf(ruta -> ruta.destino.nombre.equals(nombre));
+        for (int clave : eliminada.productos.claves()) {
+            inventario.quitar(clave, eliminada);
+        }
+        eliminada.productos.vincular(null, null);
+
+        // Rutas entrantes: se quitan de sus orígenes; los bucles quedan en la ubicación eliminada
+        List<Ruta> entrantes = new ArrayList<>();
+        for (Ruta r : eliminada.entrantes) {
+            if (r.origen == eliminada) continue;
+            r.origen.rutas.remove(r);
+            r.origen.porDestino.remove(eliminada);
+            entrantes.add(r);
         }
+        // Las salientes se conservan en eliminada.rutas para los oyentes, pero dejan de ser entrantes
+        for (Ruta r : eliminada.rutas) {
+            if (r.destino != eliminada) r.destino.entrantes.remove(r);
+        }
+        notificarCambio(o -> {
+            for (Ruta r : entrantes) o.rutaEliminada(r.origen, r);
+            o.ubicacionEliminada(eliminada);
+        });
     }
 
-    public void modificarRuta(String origen, String destino, double nuevoPeso) {
+    public synchronized void modificarRuta(String origen, String destino, double nuevoPeso) {
         Ubicacion uOrigen = ubicaciones.get(origen);
-        if (uOrigen != null) {
-            for (Ruta r : uOrigen.rutas) {
-                if (r.destino.nombre.equals(destino)) {
-                    r.peso = nuevoPeso;
-                    break;
-                }
-            }
-        }
+        Ubicacion uDestino = ubicaciones.get(destino);
+        if (uOrigen == null || uDestino == null) return;
+
+        List<Ruta> paralelas = uOrigen.porDestino.get(uDestino);
+        if (paralelas == null) return;
+        Ruta r = paralelas.get(0);
+        double anterior = r.peso;
+        r.peso = nuevoPeso;
+        notificarCambio(o -> o.rutaModificada(uOrigen, r, anterior));
     }
 
 
-    public void modificarUbicacion(String actual, String nuevo) {
+    public synchronized void modificarUbicacion(String actual, String nuevo) {
         if (!ubicaciones.containsKey(actual) || ubicaciones.containsKey(nuevo)) return;
 
+        // El índice de inventario guarda la referencia a la ubicación, no su nombre
         Ubicacion u = ubicaciones.remove(actual);
         u.nombre = nuevo;
         ubicaciones.put(nuevo, u);
 
-        // Actualizar referencias en rutas
-        for (Ubicacion origen : ubicaciones.values()) {
-            for (Ruta r : origen.rutas) {
-                if (r.destino == u) {
-                    r.destino = u;
-                }
-            }
-        }
+        // Las rutas apuntan al objeto Ubicacion, así que no hay referencias que actualizar
+        notificarCambio(o -> o.ubicacionRenombrada(u, actual));
     }
 
 }
@@ -0,0 +1,134 @@
+import java.util.*;
+
+// Instantánea inmutable del grafo en formato CSR (compressed sparse row).
+// Cada ubicación recibe un id denso 0..n-1 y sus rutas salientes ocupan las
+// posiciones offsets[id] .. offsets[id + 1] - 1 de los arreglos destinos y pesos.
+// La adyacencia inversa (rutas entrantes) sigue el mismo esquema en offsetsInv/origenesInv/pesosInv.
+public class GrafoCompacto {
+    final String[] nombres;
+    final int[] offsets;
+    final int[] destinos;
+    final double[] pesos;
+    final int[] offsetsInv;
+    final int[] origenesInv;
+    final double[] pesosInv;
+    final double[] xs;
+    final double[] ys;
+    // Cota para A*: factorHeuristica * distancia euclidiana nunca supera el costo real.
+    // Vale 0 si alguna ubicación no tiene coordenadas.
+    final double factorHeuristica;
+    final long version; // Versión del grafo de la que se tomó la instantánea
+    private final Map<String, Integer> indices;
+
+    GrafoCompacto(Collection<Ubicacion> ubicaciones, long version) {
+        this.version = version;
+        int n = ubicaciones.size();
+        this.nombres = new String[n];
+        this.offsets = new int[n + 1];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.indices = new HashMap<>(n * 2);
+
+        Map<Ubicacion, Integer> ids = new IdentityHashMap<>(n * 2);
+        int id = 0;
+        int aristas = 0;
+        for (Ubicacion u : ubicaciones) {
+            nombres[id] = u.nombre;
+            xs[id] = u.x;
+            ys[id] = u.y;
+            indices.put(u.nombre, id);
+            ids.put(u, id);
+            aristas += u.rutas.size();
+            id++;
+        }
+
+        this.destinos = new int[aristas];
+        this.pesos = new double[aristas];
+
+        int e = 0;
+        id = 0;
+        for (Ubicacion u : ubicaciones) {
+            offsets[id] = e;
+            for (Ruta r : u.rutas) {
+                destinos[e] = ids.get(r.destino);
+                pesos[e] = r.peso;
+                e++;
+            }
+            id++;
+        }
+        offsets[n] = e;
+
+        this.offsetsInv = new int[n + 1];
+        this.origenesInv = new int[aristas];
+        this.pesosInv = new double[aristas];
+        for (int i = 0; i < aristas; i++) {
+            offsetsInv[destinos[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsetsInv[v + 1] += offsetsInv[v];
+        }
+        int[] siguiente = Arrays.copyOf(offsetsInv, n);
+        for (int u = 0; u < n; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int pos = siguiente[destinos[i]]++;
+                origenesInv[pos] = u;
+                pesosInv[pos] = pesos[i];
+            }
+        }
+
+        this.factorHeuristica = calcularFactorHeuristica();
+    }
+
+    private double calcularFactorHeuristica() {
+        for (int v = 0; v < nombres.length; v++) {
+            if (Double.isNaN(xs[v]) || Double.isNaN(ys[v])) return 0.0;
+        }
+        double factor = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < nombres.length; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                double d = distanciaEuclidiana(u, destinos[i]);
+                if (d > 0) factor = Math.min(factor, pesos[i] / d);
+            }
+        }
+        return factor == Double.POSITIVE_INFINITY ? 0.0 : factor;
+    }
+
+    public int cantidadNodos() {
+        return nombres.length;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int cantidadAristas() {
+        return destinos.length;
+    }
+
+    // Devuelve el id denso de la ubicación o -1 si no existe
+    public int indice(String nombre) {
+        Integer id = indices.get(nombre);
+        return id == null ? -1 : id;
+    }
+
+    public String nombre(int id) {
+        return nombres[id];
+    }
+
+    public int gradoSalida(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    public int gradoEntrada(int id) {
+        return offsetsInv[id + 1] - offsetsInv[id];
+    }
+
+    double distanciaEuclidiana(int a, int b) {
+        return Math.hypot(xs[a] - xs[b], ys[a] - ys[b]);
+    }
+
+    // Estimación admisible y consistente del costo restante de v a destino
+    double heuristica(int v, int destino) {
+        return factorHeuristica == 0.0 ? 0.0 : factorHeuristica * distanciaEuclidiana(v, destino);
+    }
+}
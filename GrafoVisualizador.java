@@ -1,37 +1,637 @@
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
-import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.geom.Point3;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.view.View;
 import org.graphstream.ui.view.Viewer;
+import org.graphstream.ui.view.camera.Camera;
 
-public class GrafoVisualizador {
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.Component;
+import java.awt.Window;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Mapa del almacén en GraphStream. Cada Grafo tiene un solo grafo de GraphStream vivo, y
+// abrir el mapa otra vez solo vuelve a mostrar su ventana. La primera vez se arma en un hilo
+// propio: con el candado del Grafo solo se copian las listas de ubicaciones y rutas, y la
+// ventana aparece cuando el grafo de GraphStream está listo. Desde entonces se mantiene al día
+// escuchando los cambios del Grafo, uno por uno, sin reconstruirlo; una carga masiva se agrega
+// por tandas en el hilo propio y los avisos posteriores esperan a que termine.
+// Las etiquetas son lo caro de dibujar, así que se ponen según lo que se ve: un temporizador
+// de Swing revisa qué nodos caen dentro de la vista y elige el nivel de detalle por cuántos son.
+//   CERCA: nombres y distancias de lo visible.
+//   MEDIO: solo nombres de lo visible.
+//   LEJOS: sin nombres; nodos coloreados por zona conectada y un rótulo por zona.
+// Los nodos se buscan en una grilla de celdas, así que la revisión cuesta lo que se ve y no el
+// tamaño del mapa, y se omite si ni la cámara ni el grafo cambiaron. Con coordenadas, la grilla
+// usa las de la ubicación; si el layout ubica los nodos, sus posiciones se leen del grafo
+// gráfico por turnos, a lo sumo MUESTRAS_POR_REVISION por revisión. Las zonas se calculan sobre la instantánea en el hilo propio y solo se recolorea lo que cambió.
+// Los cambios fuera de la vista no tocan etiquetas. El grafo de GraphStream solo se modifica
+// con el candado de esta clase tomado. Los avisos del Grafo llegan con el candado del Grafo
+// ya tomado, así que nunca se pide el del Grafo mientras se tiene el propio.
+public class GrafoVisualizador implements OyenteGrafo {
+    static final int MAXIMO_CERCA = 150;   // Nodos visibles hasta los que se muestra todo
+    static final int MAXIMO_MEDIO = 1500;  // Nodos visibles hasta los que se muestran nombres
+    private static final int PERIODO_MS = 250;
+    private static final int MUESTRAS_POR_REVISION = 2000; // Posiciones del layout leídas por revisión
+    private static final int TANDA_CARGA = 5000;           // Nodos o aristas de una carga masiva por toma del candado
+    private static final String[] COLORES_ZONA = {
+        "#42a5f5", "#66bb6a", "#ffa726", "#ab47bc", "#ef5350", "#26c6da", "#d4e157", "#8d6e63"
+    };
+    private static final Map<Grafo, GrafoVisualizador> abiertos = new IdentityHashMap<>();
+
+    private enum Nivel { CERCA, MEDIO, LEJOS }
+
+    // Nodo con coordenadas dentro de la grilla
+    private static final class Punto {
+        final String id;
+        final double x, y;
+
+        Punto(String id, double x, double y) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private final Grafo grafo;
+    private final Graph g = new MultiGraph("Mapa del Almacén"); // Admite rutas paralelas
+    private final ExecutorService ejecutor;  // Armado inicial y cálculo de zonas
+    private final Map<Ubicacion, String> nodos = new IdentityHashMap<>(); // Ids estables: renombrar no cambia el id
+    private final Map<String, String> nodoPorNombre = new HashMap<>();
+    private final Map<Ruta, String> aristas = new IdentityHashMap<>();
+    private final Set<String> nodosEtiquetados = new HashSet<>();
+    private final Set<String> aristasEtiquetadas = new HashSet<>();
+    private final Map<String, String> claseZona = new HashMap<>();   // Id de nodo -> clase de color aplicada
+    private final Map<String, String> rotulosZona = new HashMap<>(); // Id de nodo -> rótulo de su zona
+    private final Map<String, Punto> puntos = new HashMap<>();
+    private final Map<Long, List<Punto>> celdas = new HashMap<>();
+    private final Set<String> porLayout = new HashSet<>(); // Su posición la decide el layout y se muestrea
+    private boolean conLayout;               // El layout ubica todos los nodos porque alguno no tenía coordenadas
+    private String[] muestreo = new String[0]; // Vuelta actual del muestreo; los nodos nuevos entran en la próxima
+    private int cursorMuestreo;
+    private double lado = 1;                 // Lado de las celdas; se recalcula si el mapa crece mucho
+    private int puntosAlReorganizar;
+    private final Deque<Runnable> pendientes = new ArrayDeque<>(); // Avisos llegados durante el armado o una carga
+    private boolean construido;
+    private boolean cargando;                // Una carga masiva se está agregando en el hilo del mapa
+    private boolean enConstruccion;
+    private int siguienteId;
+    private volatile Nivel nivel;
+    private boolean cambioPendiente = true;  // El grafo cambió desde la última revisión
+    private boolean zonasVencidas = true;
+    private boolean calculandoZonas;
+    private double[] ultimaArea;             // Solo la usa el hilo de Swing
+    private Viewer viewer;
+    private Timer temporizador;
 
     public static void mostrar(Grafo grafo) {
         System.setProperty("org.graphstream.ui", "swing"); // Usar backend swing
+        GrafoVisualizador v;
+        synchronized (abiertos) {
+            v = abiertos.computeIfAbsent(grafo, GrafoVisualizador::new);
+        }
+        v.abrir();
+    }
 
-        Graph g = new SingleGraph("Mapa del Almacén");
+    private GrafoVisualizador(Grafo grafo) {
+        this.grafo = grafo;
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "mapa-almacen");
+            t.setDaemon(true);
+            return t;
+        });
+        g.setAttribute("ui.quality");
+        g.setAttribute("ui.antialias");
+        g.setAttribute("ui.stylesheet", estilo(Nivel.CERCA));
+    }
 
-        for (String nombre : grafo.getNombresUbicaciones()) {
-            g.addNode(nombre).setAttribute("ui.label", nombre);
+    // No bloquea: la primera vez la ventana se muestra cuando termina el armado
+    private synchronized void abrir() {
+        if (!construido) {
+            if (!enConstruccion) {
+                enConstruccion = true;
+                ejecutor.execute(this::construir);
+            }
+            return;
         }
+        Viewer v = viewer;
+        SwingUtilities.invokeLater(() -> {
+            Window ventana = SwingUtilities.getWindowAncestor((Component) v.getDefaultView());
+            if (ventana != null) {
+                ventana.setVisible(true);
+                ventana.toFront();
+            }
+        });
+        cambioPendiente = true;
+    }
 
-        for (String origen : grafo.getNombresUbicaciones()) {
-            for (Ruta r : grafo.getUbicacion(origen).rutas) {
-                String destino = r.destino.nombre;
-                String id = origen + "-" + destino;
-                if (g.getEdge(id) == null) {
-                    g.addEdge(id, origen, destino, true)
-                     .setAttribute("ui.label", String.valueOf(r.peso));
+    private void construir() {
+        // Con el candado del Grafo solo se copia lo necesario y se da de alta el oyente, así que
+        // los avisos posteriores a la copia quedan en pendientes
+        Ubicacion[] ubicaciones;
+        String[] nombres;
+        double[] xs, ys;
+        Ruta[] rutas;
+        Ubicacion[] origenes, destinos;
+        double[] pesos;
+        synchronized (grafo) {
+            Set<String> todos = grafo.getNombresUbicaciones();
+            ubicaciones = new Ubicacion[todos.size()];
+            int aristas = 0;
+            int i = 0;
+            for (String nombre : todos) {
+                ubicaciones[i] = grafo.getUbicacion(nombre);
+                aristas += ubicaciones[i++].rutas.size();
+            }
+            nombres = new String[ubicaciones.length];
+            xs = new double[ubicaciones.length];
+            ys = new double[ubicaciones.length];
+            rutas = new Ruta[aristas];
+            origenes = new Ubicacion[aristas];
+            destinos = new Ubicacion[aristas];
+            pesos = new double[aristas];
+            int e = 0;
+            for (i = 0; i < ubicaciones.length; i++) {
+                Ubicacion u = ubicaciones[i];
+                nombres[i] = u.nombre;
+                xs[i] = u.x;
+                ys[i] = u.y;
+                for (Ruta r : u.rutas) {
+                    rutas[e] = r;
+                    origenes[e] = u;
+                    destinos[e] = r.destino;
+                    pesos[e++] = r.peso;
                 }
             }
+            grafo.agregarOyente(this);
         }
 
-        g.setAttribute("ui.stylesheet", 
-            "node { fill-color: #42a5f5; size: 20px; text-size: 16px; }" +
-            "edge { text-size: 14px; }"
-        );
-        g.setAttribute("ui.quality");
-        g.setAttribute("ui.antialias");
+        // Nadie más toca el grafo de GraphStream hasta que construido sea true
+        lado = ladoCelda(xs, ys);
+        puntosAlReorganizar = ubicaciones.length;
+        for (int i = 0; i < ubicaciones.length && !conLayout; i++) {
+            conLayout = Double.isNaN(xs[i]) || Double.isNaN(ys[i]);
+        }
+        for (int i = 0; i < ubicaciones.length; i++) agregarNodo(ubicaciones[i], nombres[i], xs[i], ys[i]);
+        for (int i = 0; i < rutas.length; i++) agregarArista(origenes[i], destinos[i], rutas[i], pesos[i]);
+
+        synchronized (this) {
+            // Con construido en true los avisos guardados se aplican en lugar de volver a guardarse
+            construido = true;
+            aplicarPendientes();
+            viewer = g.display(conLayout);
+            viewer.setCloseFramePolicy(Viewer.CloseFramePolicy.HIDE_ONLY);
+            temporizador = new Timer(PERIODO_MS, e -> revisarVista());
+            temporizador.start();
+        }
+    }
+
+    // Lado para que en promedio haya un nodo por celda
+    private static double ladoCelda(double[] xs, double[] ys) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int n = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (Double.isNaN(xs[i]) || Double.isNaN(ys[i])) continue;
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            n++;
+        }
+        if (n == 0) return 1;
+        double area = Math.max(maxX - minX, 1e-9) * Math.max(maxY - minY, 1e-9);
+        double l = Math.sqrt(area / n);
+        return l > 0 ? l : 1;
+    }
+
+    // Mientras se arma el mapa o se agrega una carga masiva fuera del hilo que avisa, los avisos
+    // se guardan para después, en orden
+    private boolean diferir(Runnable aviso) {
+        if (construido && !cargando) return false;
+        pendientes.add(aviso);
+        return true;
+    }
+
+    // Se detiene si uno de ellos empieza otra carga masiva: el resto espera a que termine
+    private void aplicarPendientes() {
+        while (!cargando && !pendientes.isEmpty()) pendientes.poll().run();
+    }
+
+    // En el hilo de Swing, que es el dueño del grafo gráfico y de la cámara
+    private void revisarVista() {
+        View vista = viewer.getDefaultView();
+        if (vista == null || !((Component) vista).isShowing()) return;
+        Camera camara = vista.getCamera();
+        Component componente = (Component) vista;
+        Point3 a = camara.transformPxToGu(0, componente.getHeight());
+        Point3 b = camara.transformPxToGu(componente.getWidth(), 0);
+        double[] area = {
+            Math.min(a.x, b.x), Math.min(a.y, b.y), Math.max(a.x, b.x), Math.max(a.y, b.y)
+        };
+        boolean mismaArea = Arrays.equals(area, ultimaArea);
+        ultimaArea = area;
+        revisar(area, mismaArea);
+    }
+
+    private synchronized void revisar(double[] area, boolean mismaArea) {
+        boolean movidos = muestrearLayout();
+        if (mismaArea && !cambioPendiente && !movidos) return;
+        cambioPendiente = false;
+
+        // Pasado MAXIMO_MEDIO ya se sabe que es LEJOS y no hacen falta los demás
+        List<String> visibles = visibles(area, MAXIMO_MEDIO + 1);
+        Nivel nuevo = visibles.size() <= MAXIMO_CERCA ? Nivel.CERCA
+                : visibles.size() <= MAXIMO_MEDIO ? Nivel.MEDIO : Nivel.LEJOS;
+        aplicar(nuevo, visibles);
+    }
+
+    // Lee del grafo gráfico la posición de hasta MUESTRAS_POR_REVISION nodos del layout, por
+    // turnos, y los mueve en la grilla; true si alguno se movió. Un layout ya estable no mueve
+    // nada, así que entonces la revisión se puede omitir igual que con coordenadas.
+    private boolean muestrearLayout() {
+        if (porLayout.isEmpty()) return false;
+        GraphicGraph grafico = viewer.getGraphicGraph();
+        boolean movidos = false;
+        int muestras = Math.min(MUESTRAS_POR_REVISION, porLayout.size());
+        for (int k = 0; k < muestras; k++) {
+            if (cursorMuestreo == muestreo.length) {
+                muestreo = porLayout.toArray(new String[0]);
+                cursorMuestreo = 0;
+                // El layout se expande o se contrae; si las celdas se llenaron, se rearman una vez por vuelta
+                if (puntos.size() > 64 && puntos.size() > 4 * celdas.size()) reorganizar();
+            }
+            String id = muestreo[cursorMuestreo++];
+            if (!porLayout.contains(id)) continue; // Eliminado o con coordenadas desde que empezó la vuelta
+            GraphicNode n = (GraphicNode) grafico.getNode(id);
+            if (n == null) continue;
+            Punto p = puntos.get(id);
+            if (p != null && p.x == n.x && p.y == n.y) continue;
+            quitarDeGrilla(id);
+            ponerEnGrilla(id, n.x, n.y);
+            movidos = true;
+        }
+        return movidos;
+    }
+
+    private List<String> visibles(double[] area, int limite) {
+        List<String> visibles = new ArrayList<>();
+        double cx0 = Math.floor(area[0] / lado), cy0 = Math.floor(area[1] / lado);
+        double cx1 = Math.floor(area[2] / lado), cy1 = Math.floor(area[3] / lado);
+        if ((cx1 - cx0 + 1) * (cy1 - cy0 + 1) > celdas.size()) {
+            // Vista muy abierta: hay más celdas en el área que celdas ocupadas
+            for (List<Punto> celda : celdas.values()) {
+                if (agregarVisibles(celda, area, visibles, limite)) return visibles;
+            }
+        } else {
+            for (long cx = (long) cx0; cx <= cx1; cx++) {
+                for (long cy = (long) cy0; cy <= cy1; cy++) {
+                    List<Punto> celda = celdas.get(clave(cx, cy));
+                    if (celda != null && agregarVisibles(celda, area, visibles, limite)) return visibles;
+                }
+            }
+        }
+        return visibles;
+    }
+
+    // true si se llegó al límite
+    private static boolean agregarVisibles(List<Punto> celda, double[] area, List<String> visibles, int limite) {
+        for (Punto p : celda) {
+            if (p.x >= area[0] && p.x <= area[2] && p.y >= area[1] && p.y <= area[3]) {
+                visibles.add(p.id);
+                if (visibles.size() >= limite) return true;
+            }
+        }
+        return false;
+    }
+
+    private static long clave(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xffffffffL);
+    }
+
+    private long celda(double x, double y) {
+        return clave((long) Math.floor(x / lado), (long) Math.floor(y / lado));
+    }
+
+    // Con layout la posición de la ubicación no es la que se dibuja: entra al muestreo
+    private void ubicar(String id, double x, double y) {
+        if (conLayout || Double.isNaN(x) || Double.isNaN(y)) {
+            porLayout.add(id);
+            return;
+        }
+        quitarPunto(id);
+        ponerEnGrilla(id, x, y);
+    }
+
+    private void ponerEnGrilla(String id, double x, double y) {
+        Punto p = new Punto(id, x, y);
+        puntos.put(id, p);
+        celdas.computeIfAbsent(celda(x, y), k -> new ArrayList<>()).add(p);
+        // Si el mapa duplicó sus nodos desde que se fijó el lado, las celdas pueden haberse llenado
+        if (puntos.size() > 64 && puntos.size() > 2 * puntosAlReorganizar) reorganizar();
+    }
+
+    private void reorganizar() {
+        double[] xs = new double[puntos.size()];
+        double[] ys = new double[puntos.size()];
+        int i = 0;
+        for (Punto p : puntos.values()) {
+            xs[i] = p.x;
+            ys[i++] = p.y;
+        }
+        lado = ladoCelda(xs, ys);
+        celdas.clear();
+        for (Punto p : puntos.values()) celdas.computeIfAbsent(celda(p.x, p.y), k -> new ArrayList<>()).add(p);
+        puntosAlReorganizar = puntos.size();
+    }
+
+    private void quitarPunto(String id) {
+        porLayout.remove(id);
+        quitarDeGrilla(id);
+    }
+
+    private void quitarDeGrilla(String id) {
+        Punto p = puntos.remove(id);
+        if (p == null) return;
+        long k = celda(p.x, p.y);
+        List<Punto> celda = celdas.get(k);
+        celda.remove(p);
+        if (celda.isEmpty()) celdas.remove(k);
+    }
+
+    private void aplicar(Nivel nuevo, List<String> visibles) {
+        if (nuevo != nivel) {
+            g.setAttribute("ui.stylesheet", estilo(nuevo));
+            if (nivel == Nivel.LEJOS) quitarZonas();
+            nivel = nuevo;
+        }
+
+        Map<String, String> etiquetas = new HashMap<>();
+        Set<String> conDistancia = new HashSet<>();
+        if (nuevo == Nivel.LEJOS) {
+            if (zonasVencidas && !calculandoZonas) {
+                zonasVencidas = false;
+                calculandoZonas = true;
+                ejecutor.execute(this::calcularZonas);
+            }
+            etiquetas.putAll(rotulosZona);
+        } else {
+            for (String id : visibles) {
+                Node n = g.getNode(id);
+                if (n == null) continue; // Eliminado mientras se revisaba la vista
+                etiquetas.put(id, (String) n.getAttribute("nombre"));
+                if (nuevo == Nivel.CERCA) n.edges().forEach(e -> conDistancia.add(e.getId()));
+            }
+        }
+
+        for (Iterator<String> it = nodosEtiquetados.iterator(); it.hasNext(); ) {
+            String id = it.next();
+            if (!etiquetas.containsKey(id)) {
+                g.getNode(id).removeAttribute("ui.label");
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, String> e : etiquetas.entrySet()) {
+            Node n = g.getNode(e.getKey());
+            if (nodosEtiquetados.add(e.getKey()) || !e.getValue().equals(n.getAttribute("ui.label"))) {
+                n.setAttribute("ui.label", e.getValue());
+            }
+        }
+
+        for (Iterator<String> it = aristasEtiquetadas.iterator(); it.hasNext(); ) {
+            String id = it.next();
+            if (!conDistancia.contains(id)) {
+                g.getEdge(id).removeAttribute("ui.label");
+                it.remove();
+            }
+        }
+        for (String id : conDistancia) {
+            if (aristasEtiquetadas.add(id)) {
+                Edge e = g.getEdge(id);
+                e.setAttribute("ui.label", String.valueOf(e.getAttribute("peso")));
+            }
+        }
+    }
+
+    // En el hilo propio: si hay una carga masiva en curso, espera este hilo y no el de Swing
+    private void calcularZonas() {
+        try {
+            InstantaneaZonas z = grafo.instantaneaZonas();
+            GrafoCompacto s = z.grafo;
+            int[] zona = z.zona;
+            int zonas = z.cantidadZonas();
+            int[] tamanios = new int[zonas];
+            int[] primera = new int[zonas];
+            for (int v = zona.length - 1; v >= 0; v--) {
+                tamanios[zona[v]]++;
+                primera[zona[v]] = v;
+            }
+            colorearZonas(s, zona, tamanios, primera);
+        } finally {
+            synchronized (this) {
+                calculandoZonas = false;
+            }
+        }
+    }
+
+    // Clase de color por zona y un rótulo en su primera ubicación; solo se tocan los nodos que
+    // cambian. El color sale del nombre de la primera ubicación, así que una zona lo conserva
+    // aunque se agreguen o quiten otras.
+    private synchronized void colorearZonas(GrafoCompacto s, int[] zona, int[] tamanios, int[] primera) {
+        if (nivel != Nivel.LEJOS) return;
+        for (int v = 0; v < zona.length; v++) {
+            String id = nodoPorNombre.get(s.nombres[v]);
+            if (id == null) continue; // Cambió después de tomar la instantánea; se corrige en la próxima
+            int z = zona[v];
+            String clase = "zona" + Math.floorMod(s.nombres[primera[z]].hashCode(), COLORES_ZONA.length);
+            if (!clase.equals(claseZona.put(id, clase))) g.getNode(id).setAttribute("ui.class", clase);
+        }
+
+        Map<String, String> nuevos = new HashMap<>();
+        for (int z = 0; z < tamanios.length; z++) {
+            String id = nodoPorNombre.get(s.nombres[primera[z]]);
+            if (id != null && tamanios[z] > 1) nuevos.put(id, "🔗 Zona de " + tamanios[z]);
+        }
+        for (Iterator<Map.Entry<String, String>> it = rotulosZona.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, String> e = it.next();
+            if (!nuevos.containsKey(e.getKey())) it.remove();
+        }
+        rotulosZona.putAll(nuevos);
+        cambioPendiente = true; // La próxima revisión pone los rótulos
+    }
+
+    private void quitarZonas() {
+        for (String id : claseZona.keySet()) {
+            Node n = g.getNode(id);
+            if (n != null) n.removeAttribute("ui.class");
+        }
+        claseZona.clear();
+        rotulosZona.clear();
+        zonasVencidas = true;
+    }
+
+    private static String estilo(Nivel nivel) {
+        switch (nivel) {
+            case CERCA:
+                return "node { fill-color: #42a5f5; size: 20px; text-size: 16px; }"
+                     + "edge { text-size: 14px; }";
+            case MEDIO:
+                return "node { fill-color: #42a5f5; size: 10px; text-size: 12px; }"
+                     + "edge { fill-color: #90a4ae; arrow-size: 5px, 3px; }";
+            default:
+                StringBuilder sb = new StringBuilder(
+                    "node { size: 6px; text-size: 14px; text-style: bold; text-background-mode: plain; }"
+                  + "edge { fill-color: #cfd8dc; arrow-shape: none; }");
+                for (int i = 0; i < COLORES_ZONA.length; i++) {
+                    sb.append("node.zona").append(i).append(" { fill-color: ").append(COLORES_ZONA[i]).append("; }");
+                }
+                return sb.toString();
+        }
+    }
+
+    private void agregarNodo(Ubicacion u, String nombre, double x, double y) {
+        String id = "n" + siguienteId++;
+        Node n = g.addNode(id);
+        n.setAttribute("nombre", nombre);
+        if (!Double.isNaN(x) && !Double.isNaN(y)) n.setAttribute("xyz", x, y, 0);
+        nodos.put(u, id);
+        nodoPorNombre.put(nombre, id);
+        ubicar(id, x, y);
+    }
+
+    private void agregarArista(Ubicacion origen, Ubicacion destino, Ruta r, double peso) {
+        String id = "e" + siguienteId++;
+        g.addEdge(id, nodos.get(origen), nodos.get(destino), true).setAttribute("peso", peso);
+        aristas.put(r, id);
+    }
+
+    @Override
+    public synchronized void ubicacionAgregada(Ubicacion u) {
+        if (diferir(() -> ubicacionAgregada(u))) return;
+        agregarNodo(u, u.nombre, u.x, u.y);
+        cambioPendiente = true;
+        zonasVencidas = true;
+    }
+
+    // Las rutas entrantes ya se avisaron antes; las salientes se van con el nodo
+    @Override
+    public synchronized void ubicacionEliminada(Ubicacion u) {
+        if (diferir(() -> ubicacionEliminada(u))) return;
+        for (Ruta r : u.rutas) aristasEtiquetadas.remove(aristas.remove(r));
+        String id = nodos.remove(u);
+        if (id == null) return;
+        nodoPorNombre.remove(u.nombre);
+        nodosEtiquetados.remove(id);
+        claseZona.remove(id);
+        rotulosZona.remove(id);
+        quitarPunto(id);
+        g.removeNode(id);
+        cambioPendiente = true;
+        zonasVencidas = true;
+    }
+
+    @Override
+    public synchronized void ubicacionRenombrada(Ubicacion u, String nombreAnterior) {
+        if (diferir(() -> ubicacionRenombrada(u, nombreAnterior))) return;
+        String id = nodos.get(u);
+        nodoPorNombre.remove(nombreAnterior);
+        nodoPorNombre.put(u.nombre, id);
+        Node n = g.getNode(id);
+        n.setAttribute("nombre", u.nombre);
+        if (nodosEtiquetados.contains(id) && nivel != Nivel.LEJOS) n.setAttribute("ui.label", u.nombre);
+    }
+
+    @Override
+    public synchronized void ubicacionMovida(Ubicacion u) {
+        if (diferir(() -> ubicacionMovida(u))) return;
+        String id = nodos.get(u);
+        g.getNode(id).setAttribute("xyz", u.x, u.y, 0);
+        ubicar(id, u.x, u.y);
+        cambioPendiente = true;
+    }
+
+    @Override
+    public synchronized void rutaAgregada(Ubicacion origen, Ruta ruta) {
+        if (diferir(() -> rutaAgregada(origen, ruta))) return;
+        agregarArista(origen, ruta.destino, ruta, ruta.peso);
+        cambioPendiente = true;
+        zonasVencidas = true;
+    }
+
+    @Override
+    public synchronized void rutaEliminada(Ubicacion origen, Ruta ruta) {
+        if (diferir(() -> rutaEliminada(origen, ruta))) return;
+        String id = aristas.remove(ruta);
+        if (id == null) return;
+        aristasEtiquetadas.remove(id);
+        g.removeEdge(id);
+        cambioPendiente = true;
+        zonasVencidas = true;
+    }
+
+    // Con el candado del Grafo solo se copian nombres, coordenadas y pesos; los nodos y aristas
+    // se agregan en el hilo del mapa por tandas de TANDA_CARGA, soltando el candado entre una y
+    // otra para que el de Swing siga revisando la vista
+    @Override
+    public synchronized void cargaMasiva(List<Ubicacion> nuevas, List<Ruta> rutas) {
+        if (diferir(() -> cargaMasiva(nuevas, rutas))) return;
+        Ubicacion[] us = nuevas.toArray(new Ubicacion[0]);
+        String[] nombres = new String[us.length];
+        double[] xs = new double[us.length];
+        double[] ys = new double[us.length];
+        for (int i = 0; i < us.length; i++) {
+            nombres[i] = us[i].nombre;
+            xs[i] = us[i].x;
+            ys[i] = us[i].y;
+        }
+        Ruta[] rs = rutas.toArray(new Ruta[0]);
+        double[] pesos = new double[rs.length];
+        for (int e = 0; e < rs.length; e++) pesos[e] = rs[e].peso;
+        cargando = true;
+        ejecutor.execute(() -> agregarCarga(us, nombres, xs, ys, rs, pesos));
+    }
+
+    private void agregarCarga(Ubicacion[] us, String[] nombres, double[] xs, double[] ys,
+                              Ruta[] rutas, double[] pesos) {
+        try {
+            for (int desde = 0; desde < us.length; desde += TANDA_CARGA) {
+                synchronized (this) {
+                    int hasta = Math.min(us.length, desde + TANDA_CARGA);
+                    for (int i = desde; i < hasta; i++) agregarNodo(us[i], nombres[i], xs[i], ys[i]);
+                    cambioPendiente = true;
+                }
+            }
+            for (int desde = 0; desde < rutas.length; desde += TANDA_CARGA) {
+                synchronized (this) {
+                    int hasta = Math.min(rutas.length, desde + TANDA_CARGA);
+                    for (int e = desde; e < hasta; e++) {
+                        agregarArista(rutas[e].origen, rutas[e].destino, rutas[e], pesos[e]);
+                    }
+                    cambioPendiente = true;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                zonasVencidas = true;
+                cargando = false;
+                aplicarPendientes();
+            }
+        }
+    }
 
-        Viewer viewer = g.display();
-        viewer.setCloseFramePolicy(Viewer.CloseFramePolicy.HIDE_ONLY);
+    @Override
+    public synchronized void rutaModificada(Ubicacion origen, Ruta ruta, double pesoAnterior) {
+        if (diferir(() -> rutaModificada(origen, ruta, pesoAnterior))) return;
+        String id = aristas.get(ruta);
+        Edge e = g.getEdge(id);
+        e.setAttribute("peso", ruta.peso);
+        if (aristasEtiquetadas.contains(id)) e.setAttribute("ui.label", String.valueOf(ruta.peso));
     }
 }
@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Montículo 4-ario de mínimos sobre ids de nodo 0..n-1 con prioridades double primitivas.
+// posiciones[id] indica dónde está cada nodo dentro del montículo (-1 si no está),
+// así disminuirPrioridad no necesita insertar duplicados ni crear objetos.
+public class HeapIndexado {
+    private static final int D = 4;
+
+    private final int[] nodos;
+    private final double[] prioridades;
+    private final int[] posiciones;
+    private int tamanio;
+
+    public HeapIndexado(int capacidad) {
+        this.nodos = new int[capacidad];
+        this.prioridades = new double[capacidad];
+        this.posiciones = new int[capacidad];
+        Arrays.fill(posiciones, -1);
+        this.tamanio = 0;
+    }
+
+    public boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean contiene(int nodo) {
+        return posiciones[nodo] >= 0;
+    }
+
+    public double prioridadMinima() {
+        return prioridades[0];
+    }
+
+    public int minimo() {
+        return nodos[0];
+    }
+
+    // Inserta el nodo o, si ya está, baja su prioridad cuando la nueva es menor
+    public void insertarOActualizar(int nodo, double prioridad) {
+        int i = posiciones[nodo];
+        if (i < 0) {
+            i = tamanio++;
+            nodos[i] = nodo;
+            prioridades[i] = prioridad;
+            posiciones[nodo] = i;
+            subir(i);
+        } else if (prioridad < prioridades[i]) {
+            prioridades[i] = prioridad;
+            subir(i);
+        }
+    }
+
+    public int extraerMinimo() {
+        int min = nodos[0];
+        posiciones[min] = -1;
+        tamanio--;
+        if (tamanio > 0) {
+            nodos[0] = nodos[tamanio];
+            prioridades[0] = prioridades[tamanio];
+            posiciones[nodos[0]] = 0;
+            bajar(0);
+        }
+        return min;
+    }
+
+    // Vacía el montículo tocando solo las posiciones ocupadas
+    public void limpiar() {
+        for (int i = 0; i < tamanio; i++) {
+            posiciones[nodos[i]] = -1;
+        }
+        tamanio = 0;
+    }
+
+    private void subir(int i) {
+        int nodo = nodos[i];
+        double p = prioridades[i];
+        while (i > 0) {
+            int padre = (i - 1) / D;
+            if (prioridades[padre] <= p) break;
+            nodos[i] = nodos[padre];
+            prioridades[i] = prioridades[padre];
+            posiciones[nodos[i]] = i;
+            i = padre;
+        }
+        nodos[i] = nodo;
+        prioridades[i] = p;
+        posiciones[nodo] = i;
+    }
+
+    private void bajar(int i) {
+        int nodo = nodos[i];
+        double p = prioridades[i];
+        while (true) {
+            int primero = D * i + 1;
+            if (primero >= tamanio) break;
+            int ultimo = Math.min(primero + D, tamanio);
+            int menor = primero;
+            for (int h = primero + 1; h < ultimo; h++) {
+                if (prioridades[h] < prioridades[menor]) menor = h;
+            }
+            if (prioridades[menor] >= p) break;
+            nodos[i] = nodos[menor];
+            prioridades[i] = prioridades[menor];
+            posiciones[nodos[i]] = i;
+            i = menor;
+        }
+        nodos[i] = nodo;
+        prioridades[i] = p;
+        posiciones[nodo] = i;
+    }
+}
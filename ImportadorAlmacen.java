@@ -0,0 +1,572 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+// Carga masiva de planos de almacén e inventarios desde CSV o desde un formato binario.
+// El archivo se mapea en memoria y se parte en trozos que se leen en paralelo; cada nombre
+// de ubicación se convierte a String una sola vez por trozo y luego recibe un id global.
+// Con todo leído, el inventario de cada ubicación se arma en paralelo en árboles nuevos, con
+// un solo insertarTodos, y el grafo se carga de una vez con Grafo.cargarMasivo, que instala
+// esos inventarios con el candado del Grafo tomado.
+//
+// CSV (UTF-8, sin comillas; las líneas vacías o que empiezan con # se ignoran):
+//   U,nombre[,x,y]                 ubicación, con coordenadas opcionales
+//   R,origen,destino,distancia     ruta
+//   P,ubicación,clave[,cantidad]   producto, con cantidad disponible opcional
+// Una ruta o producto que nombra una ubicación no declarada la crea.
+//
+// Binario (big-endian): int MAGIA, int n, int m, int k; n ubicaciones (u16 largo, bytes
+// UTF-8, double x, double y; NaN = sin coordenadas); m rutas (int origen, int destino,
+// double distancia); k productos (int ubicación, int clave, long cantidad).
+public class ImportadorAlmacen {
+    static final int MAGIA = 0x414C4D31; // "ALM1"
+    private static final int BYTES_POR_TROZO = 1 << 20;
+    private static final int REGISTROS_POR_TROZO = 1 << 16;
+
+    private final Grafo grafo;
+    private final ForkJoinPool pool;
+
+    public ImportadorAlmacen(Grafo grafo) {
+        this(grafo, ForkJoinPool.commonPool());
+    }
+
+    public ImportadorAlmacen(Grafo grafo, ForkJoinPool pool) {
+        this.grafo = grafo;
+        this.pool = pool;
+    }
+
+    // Reconoce el formato binario por su número mágico; si no lo tiene, lo lee como CSV
+    public Resumen importar(Path archivo) throws IOException {
+        return importar(archivo, () -> true);
+    }
+
+    // aplicar se consulta con todo leído, justo antes de tocar el grafo (p. ej.
+    // Consulta::comprometer); si devuelve false no se carga nada y se devuelve null
+    public Resumen importar(Path archivo, BooleanSupplier aplicar) throws IOException {
+        long inicio = System.nanoTime();
+        Datos d;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Archivo demasiado grande para mapearlo (máximo 2 GB): " + archivo);
+            }
+            ByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+            d = tamanio >= 4 && buf.getInt(0) == MAGIA ? leerBinario(buf) : leerCsv(buf);
+        }
+        long leido = System.nanoTime();
+        if (!cargar(d, aplicar)) return null;
+        long fin = System.nanoTime();
+        return new Resumen(d.nombres.length, d.origenes.length, d.productoUbicacion.length,
+                (leido - inicio) / 1_000_000, (fin - leido) / 1_000_000);
+    }
+
+    // Escribe el grafo y sus inventarios en el formato binario
+    public static void exportarBinario(Grafo grafo, Path archivo) throws IOException {
+        // Instantánea y claves con el candado del Grafo, para que coincidan entre sí
+        GrafoCompacto g;
+        int n;
+        int k = 0;
+        int[][] claves;
+        synchronized (grafo) {
+            g = grafo.compactar();
+            n = g.cantidadNodos();
+            claves = new int[n][];
+            for (int v = 0; v < n; v++) {
+                claves[v] = grafo.getUbicacion(g.nombres[v]).productos.claves();
+                k += claves[v].length;
+            }
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BYTES_POR_TROZO);
+            buf.putInt(MAGIA).putInt(n).putInt(g.cantidadAristas()).putInt(k);
+            for (int v = 0; v < n; v++) {
+                byte[] nombre = g.nombres[v].getBytes(StandardCharsets.UTF_8);
+                if (nombre.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Nombre demasiado largo: " + g.nombres[v]);
+                }
+                asegurar(canal, buf, 2 + nombre.length + 16);
+                buf.putShort((short) nombre.length).put(nombre).putDouble(g.xs[v]).putDouble(g.ys[v]);
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                    asegurar(canal, buf, 16);
+                    buf.putInt(u).putInt(g.destinos[e]).putDouble(g.pesos[e]);
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                CantidadesProductos existencias = grafo.getUbicacion(g.nombres[v]).existenciasSiHay();
+                for (int clave : claves[v]) {
+                    asegurar(canal, buf, 16);
+                    buf.putInt(v).putInt(clave).putLong(existencias == null ? 0 : existencias.disponible(clave));
+                }
+            }
+            buf.flip();
+            while (buf.hasRemaining()) canal.write(buf);
+        }
+    }
+
+    private static void asegurar(FileChannel canal, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() >= bytes) return;
+        buf.flip();
+        while (buf.hasRemaining()) canal.write(buf);
+        buf.clear();
+    }
+
+    private boolean cargar(Datos d, BooleanSupplier aplicar) {
+        // Productos agrupados por ubicación con un conteo: los de la ubicación u quedan en
+        // claves[inicios[u] .. inicios[u + 1])
+        int n = d.nombres.length;
+        int[] inicios = new int[n + 1];
+        for (int u : d.productoUbicacion) inicios[u + 1]++;
+        for (int u = 0; u < n; u++) inicios[u + 1] += inicios[u];
+        int[] siguiente = Arrays.copyOf(inicios, n);
+        int[] claves = new int[d.productoClave.length];
+        long[] cantidades = new long[claves.length];
+        for (int i = 0; i < claves.length; i++) {
+            int pos = siguiente[d.productoUbicacion[i]]++;
+            claves[pos] = d.productoClave[i];
+            cantidades[pos] = d.productoCantidad[i];
+        }
+
+        // Árboles y cantidades nuevos, sin vincular: nadie más los ve hasta que cargarMasivo
+        // los instala, así que se arman en paralelo sin tocar las ubicaciones ya existentes
+        AlmacenProductos[] almacenes = new AlmacenProductos[n];
+        CantidadesProductos[] existencias = new CantidadesProductos[n];
+        enParalelo(n, u -> {
+            if (inicios[u] == inicios[u + 1]) return;
+            AlmacenProductos almacen = new BTree();
+            almacen.insertarTodos(Arrays.copyOfRange(claves, inicios[u], inicios[u + 1]));
+            almacenes[u] = almacen;
+            for (int i = inicios[u]; i < inicios[u + 1]; i++) {
+                if (cantidades[i] == 0) continue;
+                if (existencias[u] == null) existencias[u] = new CantidadesProductos();
+                existencias[u].ajustar(claves[i], cantidades[i]);
+            }
+        });
+        if (!aplicar.getAsBoolean()) return false;
+        grafo.cargarMasivo(d.nombres, d.xs, d.ys, d.origenes, d.destinos, d.pesos, almacenes, existencias);
+        return true;
+    }
+
+    private void enParalelo(int cantidad, IntConsumer trabajo) {
+        pool.submit(() -> IntStream.range(0, cantidad).parallel().forEach(trabajo)).join();
+    }
+
+    private <T> List<T> recolectar(int cantidad, IntFunction<T> trabajo) {
+        return pool.submit(() -> IntStream.range(0, cantidad).parallel().mapToObj(trabajo).toList()).join();
+    }
+
+    // --- Binario ---
+
+    private Datos leerBinario(ByteBuffer buf) {
+        int n = buf.getInt(4), m = buf.getInt(8), k = buf.getInt(12);
+        if (n < 0 || m < 0 || k < 0) throw new IllegalArgumentException("Cabecera binaria inválida");
+        Datos d = new Datos(n, m, k);
+        int pos = 16;
+        for (int v = 0; v < n; v++) {
+            int largo = buf.getShort(pos) & 0xFFFF;
+            byte[] bytes = new byte[largo];
+            buf.get(pos + 2, bytes);
+            d.nombres[v] = new String(bytes, StandardCharsets.UTF_8);
+            pos += 2 + largo;
+            d.xs[v] = buf.getDouble(pos);
+            d.ys[v] = buf.getDouble(pos + 8);
+            pos += 16;
+        }
+        if (pos + 16L * m + 16L * k > buf.limit()) throw new IllegalArgumentException("Archivo binario truncado");
+        int rutas = pos, productos = pos + 16 * m;
+
+        int trozos = (Math.max(m, k) + REGISTROS_POR_TROZO - 1) / REGISTROS_POR_TROZO;
+        enParalelo(trozos, t -> {
+            for (int e = t * REGISTROS_POR_TROZO; e < Math.min(m, (t + 1) * REGISTROS_POR_TROZO); e++) {
+                int p = rutas + 16 * e;
+                d.origenes[e] = validarId(buf.getInt(p), n);
+                d.destinos[e] = validarId(buf.getInt(p + 4), n);
+                d.pesos[e] = buf.getDouble(p + 8);
+            }
+            for (int i = t * REGISTROS_POR_TROZO; i < Math.min(k, (t + 1) * REGISTROS_POR_TROZO); i++) {
+                int p = productos + 16 * i;
+                d.productoUbicacion[i] = validarId(buf.getInt(p), n);
+                d.productoClave[i] = buf.getInt(p + 4);
+                d.productoCantidad[i] = buf.getLong(p + 8);
+            }
+        });
+        return d;
+    }
+
+    private static int validarId(int id, int n) {
+        if (id < 0 || id >= n) throw new IllegalArgumentException("Id de ubicación fuera de rango: " + id);
+        return id;
+    }
+
+    // --- CSV ---
+
+    private Datos leerCsv(ByteBuffer buf) {
+        int tamanio = buf.limit();
+        // Pocos trozos grandes: cada trozo convierte a String cada nombre distinto que ve, así que
+        // partir más de lo que los hilos pueden aprovechar solo repite ese trabajo
+        int cantidad = Math.max(1, Math.min(tamanio / BYTES_POR_TROZO, 2 * pool.getParallelism()));
+        int[] cortes = new int[cantidad + 1];
+        cortes[cantidad] = tamanio;
+        for (int i = 1; i < cantidad; i++) {
+            int p = Math.max(cortes[i - 1], (int) ((long) tamanio * i / cantidad));
+            while (p < tamanio && buf.get(p) != '\n') p++;
+            cortes[i] = Math.min(tamanio, p + 1);
+        }
+        List<Trozo> trozos = recolectar(cantidad, i -> new Trozo(buf, cortes[i], cortes[i + 1]).leer());
+
+        // Ids globales en orden de aparición; solo se recorren los nombres distintos de cada trozo
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> nombres = new ArrayList<>();
+        int[][] globales = new int[cantidad][];
+        int m = 0, k = 0;
+        for (int t = 0; t < cantidad; t++) {
+            Trozo tr = trozos.get(t);
+            globales[t] = new int[tr.cantidadNombres];
+            for (int j = 0; j < tr.cantidadNombres; j++) {
+                Integer id = ids.putIfAbsent(tr.nombres[j], nombres.size());
+                if (id == null) {
+                    id = nombres.size();
+                    nombres.add(tr.nombres[j]);
+                }
+                globales[t][j] = id;
+            }
+            m += tr.rutaOrigen.largo;
+            k += tr.productoUbicacion.largo;
+        }
+
+        Datos d = new Datos(nombres.size(), m, k);
+        nombres.toArray(d.nombres);
+        for (int t = 0; t < cantidad; t++) {
+            Trozo tr = trozos.get(t);
+            for (int i = 0; i < tr.declarada.largo; i++) {
+                int id = globales[t][tr.declarada.datos[i]];
+                d.xs[id] = tr.x.datos[i];
+                d.ys[id] = tr.y.datos[i];
+            }
+        }
+        int[] desdeRuta = new int[cantidad], desdeProducto = new int[cantidad];
+        for (int t = 1; t < cantidad; t++) {
+            desdeRuta[t] = desdeRuta[t - 1] + trozos.get(t - 1).rutaOrigen.largo;
+            desdeProducto[t] = desdeProducto[t - 1] + trozos.get(t - 1).productoUbicacion.largo;
+        }
+        enParalelo(cantidad, t -> {
+            Trozo tr = trozos.get(t);
+            int[] g = globales[t];
+            for (int i = 0, e = desdeRuta[t]; i < tr.rutaOrigen.largo; i++, e++) {
+                d.origenes[e] = g[tr.rutaOrigen.datos[i]];
+                d.destinos[e] = g[tr.rutaDestino.datos[i]];
+                d.pesos[e] = tr.rutaPeso.datos[i];
+            }
+            for (int i = 0, p = desdeProducto[t]; i < tr.productoUbicacion.largo; i++, p++) {
+                d.productoUbicacion[p] = g[tr.productoUbicacion.datos[i]];
+                d.productoClave[p] = tr.productoClave.datos[i];
+                d.productoCantidad[p] = tr.productoCantidad.datos[i];
+            }
+        });
+        return d;
+    }
+
+    // Lee las líneas completas de buf[desde, hasta) con ids de nombre locales al trozo
+    private static final class Trozo {
+        private static final double[] POTENCIAS = new double[23]; // Potencias de 10 exactas en double
+        static {
+            POTENCIAS[0] = 1;
+            for (int i = 1; i < POTENCIAS.length; i++) POTENCIAS[i] = POTENCIAS[i - 1] * 10;
+        }
+
+        private final ByteBuffer buf;
+        private final int desde, hasta;
+        private final int[] ini = new int[5], fin = new int[5]; // Campos de la línea actual
+
+        // Nombres distintos: tabla abierta de ids + 1, comparando bytes con la primera aparición
+        private int[] tabla = new int[1024];
+        private int[] posNombre = new int[256], largoNombre = new int[256], hashNombre = new int[256];
+        String[] nombres = new String[256];
+        int cantidadNombres;
+
+        final Enteros declarada = new Enteros();
+        final Reales x = new Reales(), y = new Reales();
+        final Enteros rutaOrigen = new Enteros(), rutaDestino = new Enteros();
+        final Reales rutaPeso = new Reales();
+        final Enteros productoUbicacion = new Enteros(), productoClave = new Enteros();
+        final Largos productoCantidad = new Largos();
+
+        Trozo(ByteBuffer buf, int desde, int hasta) {
+            this.buf = buf;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        Trozo leer() {
+            int p = desde;
+            while (p < hasta) {
+                int finLinea = p;
+                while (finLinea < hasta && buf.get(finLinea) != '\n') finLinea++;
+                linea(p, finLinea);
+                p = finLinea + 1;
+            }
+            return this;
+        }
+
+        private void linea(int a, int b) {
+            int campos = 0;
+            int c = a;
+            while (campos < ini.length) {
+                int f = c;
+                while (f < b && buf.get(f) != ',') f++;
+                ini[campos] = c;
+                fin[campos] = f;
+                recortar(campos++);
+                if (f >= b) break;
+                c = f + 1;
+            }
+            if (campos == 1 && fin[0] == ini[0]) return; // Línea vacía
+            if (fin[0] > ini[0] && buf.get(ini[0]) == '#') return;
+            if (fin[0] - ini[0] != 1) error(a, "tipo de registro desconocido");
+            switch (buf.get(ini[0]) | 0x20) { // Minúscula
+                case 'u':
+                    if (campos != 2 && campos != 4) error(a, "se esperaba U,nombre[,x,y]");
+                    declarada.agregar(nombre(1, a));
+                    x.agregar(campos == 4 ? real(2, a) : Double.NaN);
+                    y.agregar(campos == 4 ? real(3, a) : Double.NaN);
+                    break;
+                case 'r':
+                    if (campos != 4) error(a, "se esperaba R,origen,destino,distancia");
+                    rutaOrigen.agregar(nombre(1, a));
+                    rutaDestino.agregar(nombre(2, a));
+                    rutaPeso.agregar(real(3, a));
+                    break;
+                case 'p':
+                    if (campos != 3 && campos != 4) error(a, "se esperaba P,ubicación,clave[,cantidad]");
+                    productoUbicacion.agregar(nombre(1, a));
+                    productoClave.agregar((int) entero(2, a, Integer.MIN_VALUE, Integer.MAX_VALUE));
+                    productoCantidad.agregar(campos == 4 ? entero(3, a, Long.MIN_VALUE, Long.MAX_VALUE) : 0);
+                    break;
+                default:
+                    error(a, "tipo de registro desconocido");
+            }
+        }
+
+        private void recortar(int i) {
+            while (ini[i] < fin[i] && esBlanco(buf.get(ini[i]))) ini[i]++;
+            while (fin[i] > ini[i] && esBlanco(buf.get(fin[i] - 1))) fin[i]--;
+        }
+
+        private static boolean esBlanco(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        private int nombre(int campo, int linea) {
+            int a = ini[campo], largo = fin[campo] - a;
+            if (largo == 0) error(linea, "nombre vacío");
+            int h = 0x811C9DC5; // FNV-1a
+            for (int i = a; i < a + largo; i++) h = (h ^ buf.get(i)) * 0x01000193;
+            int mascara = tabla.length - 1;
+            for (int s = h & mascara; ; s = (s + 1) & mascara) {
+                int id = tabla[s] - 1;
+                if (id < 0) break;
+                if (hashNombre[id] == h && mismosBytes(id, a, largo)) return id;
+            }
+
+            int id = cantidadNombres++;
+            if (id == nombres.length) {
+                nombres = Arrays.copyOf(nombres, id * 2);
+                posNombre = Arrays.copyOf(posNombre, id * 2);
+                largoNombre = Arrays.copyOf(largoNombre, id * 2);
+                hashNombre = Arrays.copyOf(hashNombre, id * 2);
+            }
+            byte[] bytes = new byte[largo];
+            buf.get(a, bytes);
+            nombres[id] = new String(bytes, StandardCharsets.UTF_8);
+            posNombre[id] = a;
+            largoNombre[id] = largo;
+            hashNombre[id] = h;
+            if (cantidadNombres * 2 > tabla.length) rehacerTabla();
+            else ubicarEnTabla(id);
+            return id;
+        }
+
+        private boolean mismosBytes(int id, int a, int largo) {
+            if (largoNombre[id] != largo) return false;
+            int p = posNombre[id];
+            for (int i = 0; i < largo; i++) {
+                if (buf.get(p + i) != buf.get(a + i)) return false;
+            }
+            return true;
+        }
+
+        private void rehacerTabla() {
+            tabla = new int[tabla.length * 2];
+            for (int id = 0; id < cantidadNombres; id++) ubicarEnTabla(id);
+        }
+
+        private void ubicarEnTabla(int id) {
+            int mascara = tabla.length - 1;
+            int s = hashNombre[id] & mascara;
+            while (tabla[s] != 0) s = (s + 1) & mascara;
+            tabla[s] = id + 1;
+        }
+
+        private long entero(int campo, int linea, long minimo, long maximo) {
+            int a = ini[campo], b = fin[campo];
+            boolean negativo = a < b && buf.get(a) == '-';
+            if (negativo || (a < b && buf.get(a) == '+')) a++;
+            if (a == b || b - a > 18) return enteroLento(campo, linea, minimo, maximo);
+            long v = 0;
+            for (int i = a; i < b; i++) {
+                int dig = buf.get(i) - '0';
+                if (dig < 0 || dig > 9) error(linea, "número inválido");
+                v = v * 10 + dig;
+            }
+            v = negativo ? -v : v;
+            if (v < minimo || v > maximo) error(linea, "número fuera de rango");
+            return v;
+        }
+
+        private long enteroLento(int campo, int linea, long minimo, long maximo) {
+            try {
+                long v = Long.parseLong(texto(campo));
+                if (v < minimo || v > maximo) error(linea, "número fuera de rango");
+                return v;
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Número inválido cerca del byte " + linea + ": " + texto(campo));
+            }
+        }
+
+        // Camino rápido para decimales simples con hasta 15 dígitos: mantisa y potencia de 10
+        // son exactas en double, así que una sola división da el valor correctamente redondeado
+        private double real(int campo, int linea) {
+            int a = ini[campo], b = fin[campo];
+            boolean negativo = a < b && buf.get(a) == '-';
+            if (negativo) a++;
+            long mantisa = 0;
+            int digitos = 0, decimales = 0;
+            boolean punto = false;
+            for (int i = a; i < b; i++) {
+                byte c = buf.get(i);
+                if (c == '.' && !punto) {
+                    punto = true;
+                } else if (c >= '0' && c <= '9') {
+                    mantisa = mantisa * 10 + (c - '0');
+                    digitos++;
+                    if (punto) decimales++;
+                } else {
+                    digitos = -1; // Exponente u otra forma: lo resuelve Double.parseDouble
+                    break;
+                }
+            }
+            if (digitos <= 0 || digitos > 15) {
+                try {
+                    return Double.parseDouble(texto(campo));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Número inválido cerca del byte " + linea + ": " + texto(campo));
+                }
+            }
+            double v = mantisa / POTENCIAS[decimales];
+            return negativo ? -v : v;
+        }
+
+        private String texto(int campo) {
+            byte[] bytes = new byte[fin[campo] - ini[campo]];
+            buf.get(ini[campo], bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void error(int linea, String motivo) {
+            int f = linea;
+            while (f < hasta && buf.get(f) != '\n' && f - linea < 200) f++;
+            byte[] bytes = new byte[f - linea];
+            buf.get(linea, bytes);
+            throw new IllegalArgumentException("Línea inválida cerca del byte " + linea + " (" + motivo + "): "
+                    + new String(bytes, StandardCharsets.UTF_8).trim());
+        }
+    }
+
+    // Todo lo leído, con ids globales de ubicación (índices en nombres)
+    private static final class Datos {
+        final String[] nombres;
+        final double[] xs, ys;
+        final int[] origenes, destinos;
+        final double[] pesos;
+        final int[] productoUbicacion, productoClave;
+        final long[] productoCantidad;
+
+        Datos(int n, int m, int k) {
+            nombres = new String[n];
+            xs = new double[n];
+            ys = new double[n];
+            Arrays.fill(xs, Double.NaN);
+            Arrays.fill(ys, Double.NaN);
+            origenes = new int[m];
+            destinos = new int[m];
+            pesos = new double[m];
+            productoUbicacion = new int[k];
+            productoClave = new int[k];
+            productoCantidad = new long[k];
+        }
+    }
+
+    // Listas crecientes de primitivos, para no guardar millones de objetos mientras se lee
+    private static final class Enteros {
+        int[] datos = new int[64];
+        int largo;
+
+        void agregar(int v) {
+            if (largo == datos.length) datos = Arrays.copyOf(datos, largo * 2);
+            datos[largo++] = v;
+        }
+    }
+
+    private static final class Reales {
+        double[] datos = new double[64];
+        int largo;
+
+        void agregar(double v) {
+            if (largo == datos.length) datos = Arrays.copyOf(datos, largo * 2);
+            datos[largo++] = v;
+        }
+    }
+
+    private static final class Largos {
+        long[] datos = new long[64];
+        int largo;
+
+        void agregar(long v) {
+            if (largo == datos.length) datos = Arrays.copyOf(datos, largo * 2);
+            datos[largo++] = v;
+        }
+    }
+
+    public static final class Resumen {
+        final int ubicaciones;
+        final int rutas;
+        final int productos;
+        final long msLectura;
+        final long msCarga;
+
+        Resumen(int ubicaciones, int rutas, int productos, long msLectura, long msCarga) {
+            this.ubicaciones = ubicaciones;
+            this.rutas = rutas;
+            this.productos = productos;
+            this.msLectura = msLectura;
+            this.msCarga = msCarga;
+        }
+
+        @Override
+        public String toString() {
+            return "📥 Importadas " + ubicaciones + " ubicaciones, " + rutas + " rutas y " + productos
+                    + " productos (lectura " + msLectura + " ms, carga " + msCarga + " ms)";
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.*;
+
+// Índice global clave de producto → ubicaciones que la guardan.
+// Tabla hash de direccionamiento abierto (sondeo lineal) sobre claves int primitivas;
+// el borrado desplaza hacia atrás los elementos siguientes, así no quedan lápidas.
+// Los métodos están sincronizados porque los almacenes concurrentes lo actualizan desde varios hilos.
+public class IndiceInventario {
+    private int[] claves;
+    private Ocurrencias[] valores; // null = casilla libre
+    private int tamanio;
+
+    public IndiceInventario() {
+        this.claves = new int[16];
+        this.valores = new Ocurrencias[16];
+        this.tamanio = 0;
+    }
+
+    public synchronized void agregar(int clave, Ubicacion u) {
+        int i = posicion(clave);
+        if (valores[i] == null) {
+            claves[i] = clave;
+            valores[i] = new Ocurrencias();
+            tamanio++;
+            valores[i].sumar(u);
+            if (tamanio * 4 > claves.length * 3) redimensionar();
+        } else {
+            valores[i].sumar(u);
+        }
+    }
+
+    public synchronized void quitar(int clave, Ubicacion u) {
+        int i = posicion(clave);
+        if (valores[i] == null) return;
+        if (valores[i].restar(u) && valores[i].n == 0) {
+            borrarCasilla(i);
+            tamanio--;
+        }
+    }
+
+    // Primera ubicación que guarda la clave, o null
+    public synchronized Ubicacion buscar(int clave) {
+        Ocurrencias o = valores[posicion(clave)];
+        return o == null ? null : o.ubicaciones[0];
+    }
+
+    public synchronized List<Ubicacion> ubicacionesDe(int clave) {
+        Ocurrencias o = valores[posicion(clave)];
+        if (o == null) return Collections.emptyList();
+        return Arrays.asList(Arrays.copyOf(o.ubicaciones, o.n));
+    }
+
+    public synchronized boolean contiene(int clave) {
+        return valores[posicion(clave)] != null;
+    }
+
+    public synchronized int cantidadClaves() {
+        return tamanio;
+    }
+
+    // Casilla de la clave o la casilla libre donde debería ir
+    private int posicion(int clave) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        while (valores[i] != null && claves[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private void borrarCasilla(int i) {
+        int mascara = claves.length - 1;
+        valores[i] = null;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (valores[j] == null) return;
+            int ideal = mezclar(claves[j]) & mascara;
+            // j puede ocupar el hueco i si su casilla ideal no está entre i (exclusivo) y j
+            boolean mover = i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j);
+            if (mover) {
+                claves[i] = claves[j];
+                valores[i] = valores[j];
+                valores[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void redimensionar() {
+        int[] viejasClaves = claves;
+        Ocurrencias[] viejosValores = valores;
+        claves = new int[viejasClaves.length * 2];
+        valores = new Ocurrencias[viejasClaves.length * 2];
+        for (int i = 0; i < viejasClaves.length; i++) {
+            if (viejosValores[i] != null) {
+                int j = posicion(viejasClaves[i]);
+                claves[j] = viejasClaves[i];
+                valores[j] = viejosValores[i];
+            }
+        }
+    }
+
+    private static int mezclar(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Ubicaciones de una clave y cuántas veces aparece en cada una
+    private static final class Ocurrencias {
+        Ubicacion[] ubicaciones = new Ubicacion[1];
+        int[] cuentas = new int[1];
+        int n;
+
+        void sumar(Ubicacion u) {
+            for (int i = 0; i < n; i++) {
+                if (ubicaciones[i] == u) {
+                    cuentas[i]++;
+                    return;
+                }
+            }
+            if (n == ubicaciones.length) {
+                ubicaciones = Arrays.copyOf(ubicaciones, n * 2);
+                cuentas = Arrays.copyOf(cuentas, n * 2);
+            }
+            ubicaciones[n] = u;
+            cuentas[n] = 1;
+            n++;
+        }
+
+        boolean restar(Ubicacion u) {
+            for (int i = 0; i < n; i++) {
+                if (ubicaciones[i] == u) {
+                    if (--cuentas[i] == 0) {
+                        n--;
+                        ubicaciones[i] = ubicaciones[n];
+                        cuentas[i] = cuentas[n];
+                        ubicaciones[n] = null;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
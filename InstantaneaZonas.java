@@ -0,0 +1,27 @@
+// Zonas conectadas y ubicaciones aisladas de ZonasConexas, copiadas con el candado del Grafo
+// junto con la instantánea de la misma versión: zona[v] y aisladas usan los ids densos de grafo
+public class InstantaneaZonas {
+    final GrafoCompacto grafo;
+    final int[] zona;     // Zona de cada ubicación, numeradas 0..k-1 en orden de aparición
+    final int zonas;
+    final int[] aisladas; // Ids sin rutas de entrada ni de salida
+
+    InstantaneaZonas(GrafoCompacto grafo, int[] zona, int zonas, int[] aisladas) {
+        this.grafo = grafo;
+        this.zona = zona;
+        this.zonas = zonas;
+        this.aisladas = aisladas;
+    }
+
+    public GrafoCompacto getGrafo() {
+        return grafo;
+    }
+
+    public long getVersion() {
+        return grafo.version;
+    }
+
+    public int cantidadZonas() {
+        return zonas;
+    }
+}
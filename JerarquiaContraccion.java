@@ -0,0 +1,482 @@
+import java.util.*;
+
+// Jerarquía de contracción precalculada sobre una instantánea del grafo.
+// Los nodos se contraen de menos a más importante; al contraer v se agrega un atajo
+// u→x de peso w(u,v) + w(v,x) solo si no hay un camino testigo igual o más corto que evite v.
+// Una consulta es un Dijkstra bidireccional que únicamente sube de rango: hacia adelante
+// por las aristas "arriba" y hacia atrás por las aristas "abajo". Los atajos guardan su
+// nodo intermedio para poder desempaquetar el camino original.
+public class JerarquiaContraccion {
+    // Máximo de nodos asentados por búsqueda testigo; si se corta, se agrega el atajo
+    private static final int LIMITE_TESTIGO = 100;
+
+    private final GrafoCompacto g;
+    final int[] rango;
+
+    // Aristas u→v con rango[v] > rango[u], agrupadas por u
+    private final int[] offArriba;
+    private final int[] destArriba;
+    private final double[] pesoArriba;
+    private final int[] medioArriba;
+
+    // Aristas u→v con rango[u] > rango[v], agrupadas por v y recorridas de v hacia u
+    private final int[] offAbajo;
+    private final int[] origAbajo;
+    private final double[] pesoAbajo;
+    private final int[] medioAbajo;
+
+    private final int atajos;
+    private final ThreadLocal<Consulta> consultas;
+
+    private JerarquiaContraccion(GrafoCompacto g, int[] rango, Adyacencia[] arriba, Adyacencia[] abajo, int atajos) {
+        int n = g.cantidadNodos();
+        this.g = g;
+        this.rango = rango;
+        this.atajos = atajos;
+
+        this.offArriba = new int[n + 1];
+        this.offAbajo = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offArriba[v + 1] = offArriba[v] + arriba[v].n;
+            offAbajo[v + 1] = offAbajo[v] + abajo[v].n;
+        }
+        this.destArriba = new int[offArriba[n]];
+        this.pesoArriba = new double[offArriba[n]];
+        this.medioArriba = new int[offArriba[n]];
+        this.origAbajo = new int[offAbajo[n]];
+        this.pesoAbajo = new double[offAbajo[n]];
+        this.medioAbajo = new int[offAbajo[n]];
+        for (int v = 0; v < n; v++) {
+            arriba[v].copiarEn(destArriba, pesoArriba, medioArriba, offArriba[v]);
+            abajo[v].copiarEn(origAbajo, pesoAbajo, medioAbajo, offAbajo[v]);
+        }
+
+        this.consultas = ThreadLocal.withInitial(() -> new Consulta(n));
+    }
+
+    public static JerarquiaContraccion construir(GrafoCompacto g) {
+        return new Constructor(g).construir();
+    }
+
+    public GrafoCompacto getGrafo() {
+        return g;
+    }
+
+    public int cantidadAtajos() {
+        return atajos;
+    }
+
+    public double distancia(String origen, String destino) {
+        int s = g.indice(origen);
+        int t = g.indice(destino);
+        if (s < 0 || t < 0) return Double.POSITIVE_INFINITY;
+        Consulta c = consultas.get();
+        c.ejecutar(s, t);
+        return c.mejor;
+    }
+
+    public Camino camino(String origen, String destino) {
+        int s = g.indice(origen);
+        int t = g.indice(destino);
+        if (s < 0 || t < 0) return Camino.inexistente(0);
+        Consulta c = consultas.get();
+        c.ejecutar(s, t);
+        if (c.encuentro < 0) return Camino.inexistente(c.asentados);
+        return new Camino(c.desempaquetar(s), c.mejor, c.asentados);
+    }
+
+    private int buscarAbajo(int v, int origen) {
+        for (int e = offAbajo[v]; e < offAbajo[v + 1]; e++) {
+            if (origAbajo[e] == origen) return e;
+        }
+        throw new IllegalStateException("Arista inexistente en la jerarquía");
+    }
+
+    private int buscarArriba(int v, int destino) {
+        for (int e = offArriba[v]; e < offArriba[v + 1]; e++) {
+            if (destArriba[e] == destino) return e;
+        }
+        throw new IllegalStateException("Arista inexistente en la jerarquía");
+    }
+
+    // Espacio de trabajo de una consulta; cada hilo tiene el suyo
+    private class Consulta {
+        final double[] distAdelante;
+        final double[] distAtras;
+        final int[] aristaAdelante;
+        final int[] aristaAtras;
+        final int[] nodoAdelante;
+        final int[] nodoAtras;
+        final HeapIndexado colaAdelante;
+        final HeapIndexado colaAtras;
+        final int[] tocados;
+        int cantidadTocados;
+        double mejor;
+        int encuentro;
+        int asentados;
+
+        Consulta(int n) {
+            distAdelante = new double[n];
+            distAtras = new double[n];
+            aristaAdelante = new int[n];
+            aristaAtras = new int[n];
+            nodoAdelante = new int[n];
+            nodoAtras = new int[n];
+            colaAdelante = new HeapIndexado(n);
+            colaAtras = new HeapIndexado(n);
+            tocados = new int[2 * n];
+            Arrays.fill(distAdelante, Double.POSITIVE_INFINITY);
+            Arrays.fill(distAtras, Double.POSITIVE_INFINITY);
+        }
+
+        void ejecutar(int s, int t) {
+            reiniciar();
+            mejor = Double.POSITIVE_INFINITY;
+            encuentro = -1;
+            asentados = 0;
+
+            tocados[cantidadTocados++] = s;
+            tocados[cantidadTocados++] = t;
+            distAdelante[s] = 0.0;
+            distAtras[t] = 0.0;
+            nodoAdelante[s] = -1;
+            nodoAtras[t] = -1;
+            colaAdelante.insertarOActualizar(s, 0.0);
+            colaAtras.insertarOActualizar(t, 0.0);
+
+            while (true) {
+                boolean adelante = !colaAdelante.estaVacio() && colaAdelante.prioridadMinima() < mejor;
+                boolean atras = !colaAtras.estaVacio() && colaAtras.prioridadMinima() < mejor;
+                if (!adelante && !atras) break;
+
+                if (adelante && (!atras || colaAdelante.prioridadMinima() <= colaAtras.prioridadMinima())) {
+                    int u = colaAdelante.extraerMinimo();
+                    asentados++;
+                    revisarEncuentro(u);
+                    if (estancadoAdelante(u)) continue;
+                    for (int e = offArriba[u]; e < offArriba[u + 1]; e++) {
+                        int v = destArriba[e];
+                        double nueva = distAdelante[u] + pesoArriba[e];
+                        if (nueva < distAdelante[v]) {
+                            if (distAdelante[v] == Double.POSITIVE_INFINITY && distAtras[v] == Double.POSITIVE_INFINITY) {
+                                tocados[cantidadTocados++] = v;
+                            }
+                            distAdelante[v] = nueva;
+                            aristaAdelante[v] = e;
+                            nodoAdelante[v] = u;
+                            colaAdelante.insertarOActualizar(v, nueva);
+                            revisarEncuentro(v);
+                        }
+                    }
+                } else {
+                    int u = colaAtras.extraerMinimo();
+                    asentados++;
+                    revisarEncuentro(u);
+                    if (estancadoAtras(u)) continue;
+                    for (int e = offAbajo[u]; e < offAbajo[u + 1]; e++) {
+                        int v = origAbajo[e];
+                        double nueva = distAtras[u] + pesoAbajo[e];
+                        if (nueva < distAtras[v]) {
+                            if (distAdelante[v] == Double.POSITIVE_INFINITY && distAtras[v] == Double.POSITIVE_INFINITY) {
+                                tocados[cantidadTocados++] = v;
+                            }
+                            distAtras[v] = nueva;
+                            aristaAtras[v] = e;
+                            nodoAtras[v] = u;
+                            colaAtras.insertarOActualizar(v, nueva);
+                            revisarEncuentro(v);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Stall-on-demand: si un nodo de rango mayor ya alcanzado llega a u por menos,
+        // la distancia de u no es mínima y no vale la pena expandirlo
+        private boolean estancadoAdelante(int u) {
+            for (int e = offAbajo[u]; e < offAbajo[u + 1]; e++) {
+                if (distAdelante[origAbajo[e]] + pesoAbajo[e] < distAdelante[u]) return true;
+            }
+            return false;
+        }
+
+        private boolean estancadoAtras(int u) {
+            for (int e = offArriba[u]; e < offArriba[u + 1]; e++) {
+                if (distAtras[destArriba[e]] + pesoArriba[e] < distAtras[u]) return true;
+            }
+            return false;
+        }
+
+        private void revisarEncuentro(int v) {
+            double total = distAdelante[v] + distAtras[v];
+            if (total < mejor) {
+                mejor = total;
+                encuentro = v;
+            }
+        }
+
+        // Expande la cadena de aristas de la jerarquía (con atajos) a nodos del grafo original
+        List<String> desempaquetar(int s) {
+            // Aristas de s a encuentro (en orden) y luego de encuentro a t
+            ArrayList<int[]> tramo = new ArrayList<>();
+            for (int v = encuentro; nodoAdelante[v] >= 0; v = nodoAdelante[v]) {
+                tramo.add(new int[] { nodoAdelante[v], v, medioArriba[aristaAdelante[v]] });
+            }
+            Collections.reverse(tramo);
+            for (int v = encuentro; nodoAtras[v] >= 0; v = nodoAtras[v]) {
+                tramo.add(new int[] { v, nodoAtras[v], medioAbajo[aristaAtras[v]] });
+            }
+
+            ArrayList<String> nombres = new ArrayList<>();
+            nombres.add(g.nombres[s]);
+            ArrayDeque<int[]> pila = new ArrayDeque<>();
+            for (int i = tramo.size() - 1; i >= 0; i--) {
+                pila.push(tramo.get(i));
+            }
+            while (!pila.isEmpty()) {
+                int[] arista = pila.pop();
+                int a = arista[0], b = arista[1], k = arista[2];
+                if (k < 0) {
+                    nombres.add(g.nombres[b]);
+                } else {
+                    // k se contrajo antes que a y b: a→k está en abajo[k] y k→b en arriba[k]
+                    pila.push(new int[] { k, b, medioArriba[buscarArriba(k, b)] });
+                    pila.push(new int[] { a, k, medioAbajo[buscarAbajo(k, a)] });
+                }
+            }
+            return nombres;
+        }
+
+        private void reiniciar() {
+            for (int i = 0; i < cantidadTocados; i++) {
+                distAdelante[tocados[i]] = Double.POSITIVE_INFINITY;
+                distAtras[tocados[i]] = Double.POSITIVE_INFINITY;
+            }
+            cantidadTocados = 0;
+            colaAdelante.limpiar();
+            colaAtras.limpiar();
+        }
+    }
+
+    // Lista de vecinos que crece según se agregan atajos; un solo registro por vecino
+    private static class Adyacencia {
+        int[] otros = new int[4];
+        double[] pesos = new double[4];
+        int[] medios = new int[4];
+        int n;
+
+        // Agrega la arista o mejora su peso; devuelve true si hubo cambio
+        boolean mejorar(int otro, double peso, int medio) {
+            for (int i = 0; i < n; i++) {
+                if (otros[i] == otro) {
+                    if (peso < pesos[i]) {
+                        pesos[i] = peso;
+                        medios[i] = medio;
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            if (n == otros.length) {
+                otros = Arrays.copyOf(otros, n * 2);
+                pesos = Arrays.copyOf(pesos, n * 2);
+                medios = Arrays.copyOf(medios, n * 2);
+            }
+            otros[n] = otro;
+            pesos[n] = peso;
+            medios[n] = medio;
+            n++;
+            return true;
+        }
+
+        void quitar(int otro) {
+            for (int i = 0; i < n; i++) {
+                if (otros[i] == otro) {
+                    n--;
+                    otros[i] = otros[n];
+                    pesos[i] = pesos[n];
+                    medios[i] = medios[n];
+                    return;
+                }
+            }
+        }
+
+        void copiarEn(int[] destOtros, double[] destPesos, int[] destMedios, int desde) {
+            System.arraycopy(otros, 0, destOtros, desde, n);
+            System.arraycopy(pesos, 0, destPesos, desde, n);
+            System.arraycopy(medios, 0, destMedios, desde, n);
+        }
+    }
+
+    // Preprocesamiento: orden de contracción por diferencia de aristas con actualización perezosa
+    private static class Constructor {
+        final GrafoCompacto g;
+        final int n;
+        final Adyacencia[] salida;
+        final Adyacencia[] entrada;
+        final Adyacencia[] arriba;
+        final Adyacencia[] abajo;
+        final boolean[] contraido;
+        final int[] vecinosContraidos;
+        final int[] nivel;
+        final int[] rango;
+
+        // Búsqueda testigo
+        final double[] distTestigo;
+        final int[] tocadosTestigo;
+        int cantidadTocados;
+        final HeapIndexado colaTestigo;
+        int atajos;
+
+        Constructor(GrafoCompacto g) {
+            this.g = g;
+            this.n = g.cantidadNodos();
+            this.salida = new Adyacencia[n];
+            this.entrada = new Adyacencia[n];
+            this.arriba = new Adyacencia[n];
+            this.abajo = new Adyacencia[n];
+            this.contraido = new boolean[n];
+            this.vecinosContraidos = new int[n];
+            this.nivel = new int[n];
+            this.rango = new int[n];
+            this.distTestigo = new double[n];
+            this.tocadosTestigo = new int[n];
+            this.colaTestigo = new HeapIndexado(n);
+            Arrays.fill(distTestigo, Double.POSITIVE_INFINITY);
+
+            for (int v = 0; v < n; v++) {
+                salida[v] = new Adyacencia();
+                entrada[v] = new Adyacencia();
+                arriba[v] = new Adyacencia();
+                abajo[v] = new Adyacencia();
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                    int v = g.destinos[e];
+                    if (u == v) continue;
+                    salida[u].mejorar(v, g.pesos[e], -1);
+                    entrada[v].mejorar(u, g.pesos[e], -1);
+                }
+            }
+        }
+
+        JerarquiaContraccion construir() {
+            HeapIndexado orden = new HeapIndexado(n);
+            for (int v = 0; v < n; v++) {
+                orden.insertarOActualizar(v, prioridad(v));
+            }
+
+            int siguienteRango = 0;
+            while (!orden.estaVacio()) {
+                int v = orden.extraerMinimo();
+                double p = prioridad(v);
+                if (!orden.estaVacio() && p > orden.prioridadMinima()) {
+                    orden.insertarOActualizar(v, p);
+                    continue;
+                }
+                contraer(v);
+                rango[v] = siguienteRango++;
+            }
+            return new JerarquiaContraccion(g, rango, arriba, abajo, atajos);
+        }
+
+        private double prioridad(int v) {
+            int grado = 0;
+            Adyacencia in = entrada[v], out = salida[v];
+            for (int i = 0; i < in.n; i++) if (!contraido[in.otros[i]]) grado++;
+            for (int i = 0; i < out.n; i++) if (!contraido[out.otros[i]]) grado++;
+            return 2.0 * (atajosNecesarios(v, false) - grado) + vecinosContraidos[v] + nivel[v];
+        }
+
+        private void contraer(int v) {
+            Adyacencia in = entrada[v], out = salida[v];
+            for (int i = 0; i < out.n; i++) {
+                if (!contraido[out.otros[i]]) arriba[v].mejorar(out.otros[i], out.pesos[i], out.medios[i]);
+            }
+            for (int i = 0; i < in.n; i++) {
+                if (!contraido[in.otros[i]]) abajo[v].mejorar(in.otros[i], in.pesos[i], in.medios[i]);
+            }
+
+            atajos += atajosNecesarios(v, true);
+            contraido[v] = true;
+
+            // v ya no participa: se retira de las listas de sus vecinos aún vivos
+            for (int i = 0; i < in.n; i++) {
+                int u = in.otros[i];
+                if (contraido[u]) continue;
+                vecinosContraidos[u]++;
+                nivel[u] = Math.max(nivel[u], nivel[v] + 1);
+                salida[u].quitar(v);
+            }
+            for (int i = 0; i < out.n; i++) {
+                int x = out.otros[i];
+                if (contraido[x]) continue;
+                vecinosContraidos[x]++;
+                nivel[x] = Math.max(nivel[x], nivel[v] + 1);
+                entrada[x].quitar(v);
+            }
+        }
+
+        // Cuenta (y si agregar es true, inserta) los atajos que exige contraer v
+        private int atajosNecesarios(int v, boolean agregar) {
+            Adyacencia in = entrada[v], out = salida[v];
+            int cuenta = 0;
+            for (int i = 0; i < in.n; i++) {
+                int u = in.otros[i];
+                if (contraido[u]) continue;
+                double wu = in.pesos[i];
+
+                double maximo = -1;
+                for (int j = 0; j < out.n; j++) {
+                    int x = out.otros[j];
+                    if (!contraido[x] && x != u) maximo = Math.max(maximo, wu + out.pesos[j]);
+                }
+                if (maximo < 0) continue;
+
+                buscarTestigos(u, v, maximo);
+                for (int j = 0; j < out.n; j++) {
+                    int x = out.otros[j];
+                    if (contraido[x] || x == u) continue;
+                    double via = wu + out.pesos[j];
+                    if (distTestigo[x] > via) {
+                        cuenta++;
+                        if (agregar) {
+                            salida[u].mejorar(x, via, v);
+                            entrada[x].mejorar(u, via, v);
+                        }
+                    }
+                }
+            }
+            return cuenta;
+        }
+
+        private void buscarTestigos(int origen, int excluido, double maximo) {
+            for (int i = 0; i < cantidadTocados; i++) {
+                distTestigo[tocadosTestigo[i]] = Double.POSITIVE_INFINITY;
+            }
+            cantidadTocados = 0;
+            colaTestigo.limpiar();
+
+            distTestigo[origen] = 0.0;
+            tocadosTestigo[cantidadTocados++] = origen;
+            colaTestigo.insertarOActualizar(origen, 0.0);
+
+            int asentados = 0;
+            while (!colaTestigo.estaVacio()) {
+                if (colaTestigo.prioridadMinima() > maximo || ++asentados > LIMITE_TESTIGO) break;
+                int a = colaTestigo.extraerMinimo();
+                Adyacencia out = salida[a];
+                for (int i = 0; i < out.n; i++) {
+                    int b = out.otros[i];
+                    if (contraido[b] || b == excluido) continue;
+                    double nueva = distTestigo[a] + out.pesos[i];
+                    if (nueva < distTestigo[b]) {
+                        if (distTestigo[b] == Double.POSITIVE_INFINITY) tocadosTestigo[cantidadTocados++] = b;
+                        distTestigo[b] = nueva;
+                        colaTestigo.insertarOActualizar(b, nueva);
+                    }
+                }
+            }
+        }
+    }
+}
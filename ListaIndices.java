@@ -0,0 +1,47 @@
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.List;
+
+// Lista observable de los números de fila desde .. desde + cantidad - 1 sin guardarlos:
+// cada elemento se calcula cuando la tabla lo pide, así que ocupa lo mismo con diez
+// filas que con diez millones
+class ListaIndices extends ObservableListBase<Integer> {
+    private int desde;
+    private int cantidad;
+
+    void mostrar(int nuevoDesde, int nuevaCantidad) {
+        List<Integer> anteriores = rango(desde, cantidad);
+        desde = nuevoDesde;
+        cantidad = nuevaCantidad;
+        beginChange();
+        if (!anteriores.isEmpty()) nextRemove(0, anteriores);
+        if (nuevaCantidad > 0) nextAdd(0, nuevaCantidad);
+        endChange();
+    }
+
+    @Override
+    public Integer get(int i) {
+        if (i < 0 || i >= cantidad) throw new IndexOutOfBoundsException(i);
+        return desde + i;
+    }
+
+    @Override
+    public int size() {
+        return cantidad;
+    }
+
+    private static List<Integer> rango(int desde, int cantidad) {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int i) {
+                return desde + i;
+            }
+
+            @Override
+            public int size() {
+                return cantidad;
+            }
+        };
+    }
+}
@@ -31,13 +31,13 @@ public class Main {
 
         // ✅ Inventario en Estante A usando Árbol B (clasificación por lote/producto)
         System.out.println("\n🌳 Inventario en Estante A (Árbol B):");
-        BTree inventarioEstanteA = grafo.getUbicacion("Estante A").productos;
+        AlmacenProductos inventarioEstanteA = grafo.getUbicacion("Estante A").productos;
         inventarioEstanteA.insertar(25); // Ejemplo: Lote 25
         inventarioEstanteA.insertar(10);
         inventarioEstanteA.insertar(15);
         inventarioEstanteA.insertar(30);
         inventarioEstanteA.insertar(5);
-        inventarioEstanteA.mostrar();
+        System.out.print(inventarioEstanteA.mostrarComoTexto());
 
         // ✅ Exploración del almacén con BFS y DFS
         System.out.println("\n🔎 BFS desde 'Entrada':");
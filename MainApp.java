@@ -1,4 +1,5 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -6,10 +7,14 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.nio.file.Path;
 import java.util.*;
 
 public class MainApp extends Application {
     private Grafo grafo = new Grafo();
+    private CacheRutas cacheRutas = new CacheRutas(grafo, 64);
+    private RutasPrecalculadas rutasPrecalculadas = new RutasPrecalculadas(grafo);
+    private EjecutorConsultas consultas;
 
     public static void main(String[] args) {
         launch(args);
@@ -28,9 +33,23 @@ public class MainApp extends Application {
         titulo.setMaxWidth(Double.MAX_VALUE);
 
         TextArea output = new TextArea();
-        output.setPrefRowCount(15);
+        output.setPrefRowCount(8);
         output.setEditable(false);
 
+        // Las consultas de análisis corren en segundo plano y entregan su texto por lotes
+        ProgressBar barraAvance = new ProgressBar(0);
+        Label lblConsulta = new Label("Sin consultas en curso");
+        int hilos = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        consultas = new EjecutorConsultas(grafo, hilos, 16, Platform::runLater, output::appendText, c -> {
+            barraAvance.setProgress(c.getAvance());
+            lblConsulta.setText(consultas.cantidadActivas() == 0
+                ? "Sin consultas en curso"
+                : "⏳ " + c.getNombre() + " (" + consultas.cantidadActivas() + " en curso)");
+        });
+
+        // Resultados grandes (mapa, distancias, productos): tabla virtualizada en vez de texto
+        TablaResultados resultados = new TablaResultados(consultas);
+
         // 📍 Sección: Ubicaciones y Rutas
         TitledPane paneUbicaciones = new TitledPane();
         paneUbicaciones.setText("📍 Ubicaciones y Rutas");
@@ -145,9 +164,7 @@ public class MainApp extends Application {
             try {
                 String ubic = txtUbicProd.getText().trim();
                 int clave = Integer.parseInt(txtClave.getText().trim());
-                Ubicacion u = grafo.getUbicacion(ubic);
-                if (u != null) {
-                    u.productos.insertar(clave);
+                if (grafo.insertarProducto(ubic, clave)) {
                     output.appendText("📦 Producto " + clave + " insertado en " + ubic + "\n");
                 } else {
                     output.appendText("⚠️ Ubicación no encontrada\n");
@@ -162,31 +179,50 @@ public class MainApp extends Application {
         Button btnMostrar = new Button("Ver productos");
         btnMostrar.setOnAction(e -> {
             String nombre = txtMostrar.getText().trim();
-            Ubicacion u = grafo.getUbicacion(nombre);
-            if (u != null) {
-                output.appendText("🌳 Productos en " + nombre + ":\n" + u.productos.mostrarComoTexto());
+            int[] claves = grafo.productosDe(nombre);
+            if (claves != null) {
+                resultados.mostrar("🌳 Productos en " + nombre, new FilasProductos(claves));
+                output.appendText("🌳 Productos en " + nombre + ": " + claves.length + " claves\n");
             } else {
                 output.appendText("⚠️ Ubicación no encontrada\n");
             }
         });
 
+        // Reporte por rango de lotes; con BPlusTree solo se leen las hojas del rango
+        TextField txtRangoUbic = new TextField(); txtRangoUbic.setPromptText("Ubicación");
+        TextField txtRangoDesde = new TextField(); txtRangoDesde.setPromptText("Desde clave");
+        TextField txtRangoHasta = new TextField(); txtRangoHasta.setPromptText("Hasta clave");
+        CheckBox chkBMas = new CheckBox("Usar árbol B+");
+        Button btnRango = new Button("Productos en rango");
+        btnRango.setOnAction(e -> {
+            try {
+                String nombre = txtRangoUbic.getText().trim();
+                int desde = Integer.parseInt(txtRangoDesde.getText().trim());
+                int hasta = Integer.parseInt(txtRangoHasta.getText().trim());
+                if (chkBMas.isSelected()) grafo.usarArbolBMas(nombre);
+                int[] claves = grafo.productosEnRango(nombre, desde, hasta);
+                if (claves == null) {
+                    output.appendText("⚠️ Ubicación no encontrada\n");
+                    return;
+                }
+                String encabezado = "📑 Productos " + desde + "-" + hasta + " en " + nombre;
+                resultados.mostrar(encabezado, new FilasProductos(claves));
+                output.appendText(encabezado + ": " + claves.length + " claves\n");
+            } catch (NumberFormatException ex) {
+                output.appendText("⚠️ Las claves del rango deben ser números enteros\n");
+            }
+        });
+
         TextField txtBuscarClave = new TextField(); txtBuscarClave.setPromptText("Clave a buscar");
         Button btnBuscar = new Button("Buscar Producto");
         btnBuscar.setOnAction(e -> {
             try {
                 int clave = Integer.parseInt(txtBuscarClave.getText().trim());
-                boolean encontrado = false;
-
-                for (String nombre : grafo.getNombresUbicaciones()) {
-                    Ubicacion u = grafo.getUbicacion(nombre);
-                    if (u.productos.buscar(clave)) {
-                        output.appendText("🔍 Producto " + clave + " encontrado en: " + nombre + "\n");
-                        encontrado = true;
-                        break;
-                    }
-                }
+                Ubicacion u = grafo.buscarProducto(clave);
 
-                if (!encontrado) {
+                if (u != null) {
+                    output.appendText("🔍 Producto " + clave + " encontrado en: " + u.nombre + "\n");
+                } else {
                     output.appendText("❌ Producto " + clave + " no se encuentra en ninguna ubicación\n");
                 }
                 txtBuscarClave.clear();
@@ -200,18 +236,11 @@ public class MainApp extends Application {
         btnEliminarProd.setOnAction(e -> {
             try {
                 int clave = Integer.parseInt(txtEliminarClave.getText().trim());
-                boolean eliminado = false;
-
-                for (String nombre : grafo.getNombresUbicaciones()) {
-                    Ubicacion u = grafo.getUbicacion(nombre);
-                    if (u.productos.eliminar(clave)) {
-                        output.appendText("🗑️ Producto " + clave + " eliminado de: " + nombre + "\n");
-                        eliminado = true;
-                        break;
-                    }
-                }
+                Ubicacion u = grafo.eliminarProducto(clave);
 
-                if (!eliminado) {
+                if (u != null) {
+                    output.appendText("🗑️ Producto " + clave + " eliminado de: " + u.nombre + "\n");
+                } else {
                     output.appendText("⚠️ Producto " + clave + " no se encontró para eliminar\n");
                 }
                 txtEliminarClave.clear();
@@ -223,6 +252,7 @@ public class MainApp extends Application {
         VBox boxProductos = new VBox(10,
             new HBox(10, txtUbicProd, txtClave, btnInsertar),
             new HBox(10, txtMostrar, btnMostrar),
+            new HBox(10, txtRangoUbic, txtRangoDesde, txtRangoHasta, chkBMas, btnRango),
             new HBox(10, txtBuscarClave, btnBuscar),
             new HBox(10, txtEliminarClave, btnEliminarProd)
         );
@@ -241,35 +271,106 @@ public class MainApp extends Application {
         Button btnAisladas = new Button("🚫 Ubicaciones aisladas");
 
         btnMapa.setOnAction(e -> {
-            output.appendText("\n📌 Mapa del Almacén:\n");
-            output.appendText(grafo.mostrarGrafo());
+            consultas.enviar("Mapa", "mapa", (g, c) -> {
+                FuenteFilas filas = new FilasRutas(g);
+                c.escribir("\n📌 Mapa del Almacén: " + g.cantidadNodos() + " ubicaciones, " + g.cantidadAristas() + " rutas\n");
+                c.enInterfaz(() -> resultados.mostrar("📌 Mapa del Almacén", filas));
+            });
             GrafoVisualizador.mostrar(grafo);
         });
 
-        btnDijkstra.setOnAction(e -> {
-            output.appendText("\n🔹 Rutas más cortas desde 'Entrada':\n");
-            Map<String, Double> dist = Dijkstra.calcularDistancias(grafo, "Entrada");
-            for (String d : dist.keySet()) output.appendText("A " + d + ": " + dist.get(d) + "\n");
-        });
+        btnDijkstra.setOnAction(e -> consultas.enviar("Rutas más cortas", "dijkstra:Entrada", (g, c) -> {
+            cacheRutas.mantener("Entrada");
+            FuenteFilas filas = new FilasDistancias(cacheRutas.arbol(g, "Entrada"));
+            c.escribir("\n🔹 Rutas más cortas desde 'Entrada': " + filas.cantidadFilas() + " ubicaciones\n");
+            c.enInterfaz(() -> resultados.mostrar("🔹 Distancias desde 'Entrada'", filas));
+        }));
+
+        btnBFS.setOnAction(e -> consultas.enviar("BFS", "bfs:Entrada", recorrido("Entrada", true, resultados)));
+        btnDFS.setOnAction(e -> consultas.enviar("DFS", "dfs:Entrada", recorrido("Entrada", false, resultados)));
+        btnCiclo.setOnAction(e -> consultas.enviar("Ciclos", "ciclo", (g, c) -> {
+            MotorRecorrido motor = MotorRecorrido.para(g);
+            double n = Math.max(1, g.cantidadNodos());
+            boolean completo = motor.profundidadCompleta(new VisitanteRecorrido() {
+                @Override
+                public boolean entrar(int nodo, int profundidad) {
+                    c.avanzar(motor.visitados() / n);
+                    return !c.estaCancelada();
+                }
 
-        btnBFS.setOnAction(e -> output.appendText(grafo.bfs("Entrada")));
-        btnDFS.setOnAction(e -> output.appendText(grafo.dfs("Entrada")));
-        btnCiclo.setOnAction(e -> {
-            boolean ciclo = grafo.hayCiclo();
-            String mensaje = ciclo ? "⚠️ Sí, existen ciclos en el grafo.\n" : "✅ No hay ciclos, el grafo es eficiente.\n";
-            output.appendText(mensaje);
+                @Override
+                public boolean arista(int origen, int destino, int tipo) {
+                    return tipo != MotorRecorrido.ARISTA_RETROCESO;
+                }
+            });
+            if (c.estaCancelada()) return;
+            c.escribir(completo ? "✅ No hay ciclos, el grafo es eficiente.\n" : "⚠️ Sí, existen ciclos en el grafo.\n");
+        }));
+
+        btnConectadas.setOnAction(e -> consultas.enviar("Zonas conectadas", "zonas", (g, c) -> {
+            // De la estructura incremental del Grafo, con su propia instantánea de la misma versión
+            InstantaneaZonas z = grafo.instantaneaZonas();
+            FilasZonas filas = new FilasZonas(z.getGrafo(), z.zona);
+            c.escribir("\n🔗 Zonas conectadas: " + filas.cantidadZonas() + " zonas, " + filas.cantidadFilas() + " ubicaciones\n");
+            c.enInterfaz(() -> resultados.mostrar("🔗 Zonas conectadas", filas));
+        }));
+
+        btnAisladas.setOnAction(e -> consultas.enviar("Ubicaciones aisladas", "aisladas", (g, c) -> {
+            InstantaneaZonas z = grafo.instantaneaZonas();
+            FuenteFilas filas = new FilasUbicaciones(z.getGrafo(), z.aisladas);
+            c.escribir("\n🚫 Ubicaciones aisladas: " + filas.cantidadFilas() + "\n");
+            c.enInterfaz(() -> resultados.mostrar("🚫 Ubicaciones aisladas", filas));
+        }));
+
+        // La importación modifica el grafo, pero como lee archivos grandes también corre en segundo plano
+        TextField txtArchivo = new TextField(); txtArchivo.setPromptText("Archivo CSV o binario");
+        txtArchivo.setPrefWidth(300);
+        Button btnImportar = new Button("📥 Importar almacén");
+        btnImportar.setOnAction(e -> {
+            String ruta = txtArchivo.getText().trim();
+            if (ruta.isEmpty()) {
+                output.appendText("⚠️ Indique el archivo a importar.\n");
+                return;
+            }
+            // Cancelable mientras lee el archivo; desde que empieza a cargar el grafo ya no
+            consultas.enviarCambio("Importación", "importar:" + ruta, c -> {
+                ImportadorAlmacen.Resumen r = new ImportadorAlmacen(grafo).importar(Path.of(ruta), c::comprometer);
+                if (r != null) c.escribir(r + "\n");
+            });
         });
 
-        btnConectadas.setOnAction(e -> {
-            output.appendText("\n🔗 Zonas conectadas:\n");
-            for (Set<String> c : grafo.componentesConexas()) output.appendText("Zona: " + c + "\n");
+        // Punto a punto con la jerarquía de contracción: responde al instante, sin pasar por la cola
+        TextField txtCaminoDesde = new TextField(); txtCaminoDesde.setPromptText("Desde");
+        TextField txtCaminoHasta = new TextField(); txtCaminoHasta.setPromptText("Hasta");
+        Button btnCamino = new Button("🧭 Ruta entre ubicaciones");
+        btnCamino.setOnAction(e -> {
+            String desde = txtCaminoDesde.getText().trim();
+            String hasta = txtCaminoHasta.getText().trim();
+            Camino camino = rutasPrecalculadas.camino(desde, hasta);
+            output.appendText("🧭 " + desde + " → " + hasta + ": " + camino
+                + (rutasPrecalculadas.estaActualizada() ? "" : " (el mapa cambió; la ruta se recalcula en segundo plano)")
+                + "\n");
         });
 
-        btnAisladas.setOnAction(e -> {
-            output.appendText("\n🚫 Ubicaciones aisladas:\n");
-            for (String z : grafo.zonasAisladas()) output.appendText("Ubicación: " + z + "\n");
+        // Recorrido de un pedido: orden de visita de varias paradas, planificado sobre la instantánea
+        TextField txtPedidoInicio = new TextField("Entrada"); txtPedidoInicio.setPromptText("Inicio");
+        TextField txtPedidoParadas = new TextField(); txtPedidoParadas.setPromptText("Paradas separadas por comas");
+        CheckBox chkVolver = new CheckBox("Volver al inicio");
+        Button btnPedido = new Button("🛒 Recorrido de pedido");
+        btnPedido.setOnAction(e -> {
+            String inicio = txtPedidoInicio.getText().trim();
+            List<String> paradas = Arrays.stream(txtPedidoParadas.getText().split(","))
+                .map(String::trim).filter(p -> !p.isEmpty()).toList();
+            boolean volver = chkVolver.isSelected();
+            consultas.enviar("Recorrido de pedido", "pedido:" + inicio + ":" + paradas + ":" + volver, (g, c) -> {
+                Recorrido r = new PlanificadorRecorrido(g).planificar(inicio, paradas, volver, 2000);
+                c.escribir("🛒 " + r + "\n");
+            });
         });
 
+        Button btnCancelar = new Button("⏹️ Cancelar consultas");
+        btnCancelar.setOnAction(e -> consultas.cancelarTodas());
+
         GridPane gridBotones = new GridPane();
         gridBotones.setHgap(15);
         gridBotones.setVgap(15);
@@ -291,12 +392,56 @@ public class MainApp extends Application {
         gridBotones.add(btnConectadas, 1, 1);
         gridBotones.add(btnAisladas, 2, 1);
 
-        paneAnalisis.setContent(gridBotones);
+        HBox filaAvance = new HBox(10, barraAvance, lblConsulta, btnCancelar);
+        filaAvance.setAlignment(Pos.CENTER_LEFT);
+        HBox filaCamino = new HBox(10, txtCaminoDesde, txtCaminoHasta, btnCamino);
+        filaCamino.setAlignment(Pos.CENTER_LEFT);
+        HBox filaPedido = new HBox(10, txtPedidoInicio, txtPedidoParadas, chkVolver, btnPedido);
+        filaPedido.setAlignment(Pos.CENTER_LEFT);
+        HBox filaImportar = new HBox(10, txtArchivo, btnImportar);
+        filaImportar.setAlignment(Pos.CENTER_LEFT);
+        paneAnalisis.setContent(new VBox(10, gridBotones, filaCamino, filaPedido, filaImportar, filaAvance));
 
-        root.getChildren().addAll(titulo, paneUbicaciones, paneProductos, paneAnalisis, output);
+        root.getChildren().addAll(titulo, paneUbicaciones, paneProductos, paneAnalisis, output, resultados);
 
         Scene scene = new Scene(root, 1000, 700);
         stage.setScene(scene);
         stage.show();
     }
+
+    @Override
+    public void stop() {
+        if (consultas != null) consultas.close();
+        rutasPrecalculadas.cerrar();
+    }
+
+    // Recorrido desde inicio que va escribiendo cada ubicación a medida que la visita
+    private EjecutorConsultas.Tarea recorrido(String inicio, boolean anchura, TablaResultados resultados) {
+        return (g, c) -> {
+            String nombre = anchura ? "BFS" : "DFS";
+            MotorRecorrido motor = MotorRecorrido.para(g);
+            double n = Math.max(1, g.cantidadNodos());
+            // El orden de visita va a la tabla; la consola solo recibe el resumen
+            int[] nodos = new int[g.cantidadNodos()];
+            int[] profundidades = new int[g.cantidadNodos()];
+            int[] cantidad = new int[1];
+            VisitanteRecorrido visitante = new VisitanteRecorrido() {
+                @Override
+                public boolean entrar(int nodo, int profundidad) {
+                    nodos[cantidad[0]] = nodo;
+                    profundidades[cantidad[0]++] = profundidad;
+                    c.avanzar(motor.visitados() / n);
+                    return !c.estaCancelada();
+                }
+            };
+            int origen = g.indice(inicio);
+            if (anchura) motor.anchura(origen, visitante);
+            else motor.profundidad(origen, visitante);
+            if (c.estaCancelada()) return;
+
+            FuenteFilas filas = new FilasRecorrido(g, nodos, profundidades, cantidad[0]);
+            c.escribir("🔍 " + nombre + " desde '" + inicio + "': " + filas.cantidadFilas() + " ubicaciones alcanzadas\n");
+            c.enInterfaz(() -> resultados.mostrar("🔍 " + nombre + " desde '" + inicio + "'", filas));
+        };
+    }
 }
@@ -0,0 +1,416 @@
+import java.util.Arrays;
+
+// Conjunto de claves de producto al estilo roaring bitmap. Cada clave se parte en sus 16 bits
+// altos, que eligen un bloque, y sus 16 bits bajos, que se guardan en el bloque: como arreglo
+// ordenado de char mientras tenga hasta 4096 claves, o como mapa de 65536 bits si tiene más.
+// En espacios de claves densos ocupa unos pocos bytes por clave y la unión, la intersección y
+// la cardinalidad se resuelven bloque a bloque con operaciones sobre palabras de 64 bits.
+// A diferencia de BTree no guarda repetidos: insertar una clave presente no tiene efecto.
+public class MapaBitsProductos implements AlmacenProductos {
+    private static final int LIMITE_ARREGLO = 4096;
+
+    private int[] altos;            // Ordenados como int con signo, así claves() sale en orden
+    private Bloque[] bloques;
+    private int cantidadBloques;
+    private int cardinalidad;
+    private IndiceInventario indice; // Índice global del grafo dueño, si lo hay
+    private Ubicacion ubicacion;
+
+    public MapaBitsProductos() {
+        this.altos = new int[4];
+        this.bloques = new Bloque[4];
+    }
+
+    public static MapaBitsProductos de(int[] claves) {
+        MapaBitsProductos m = new MapaBitsProductos();
+        m.insertarTodos(claves);
+        return m;
+    }
+
+    // Vista como mapa de bits de cualquier almacén; si ya lo es se devuelve el mismo objeto
+    public static MapaBitsProductos de(AlmacenProductos almacen) {
+        if (almacen instanceof MapaBitsProductos) return (MapaBitsProductos) almacen;
+        return de(almacen.claves());
+    }
+
+    @Override
+    public void vincular(IndiceInventario indice, Ubicacion ubicacion) {
+        this.indice = indice;
+        this.ubicacion = ubicacion;
+    }
+
+    @Override
+    public void insertar(int clave) {
+        int i = buscarAlto(clave >> 16);
+        if (i < 0) i = agregarBloque(-i - 1, clave >> 16);
+        if (bloques[i].agregar((char) clave)) {
+            cardinalidad++;
+            if (indice != null) indice.agregar(clave, ubicacion);
+        }
+    }
+
+    @Override
+    public void insertarTodos(int[] claves) {
+        int[] lote = claves.clone();
+        Arrays.sort(lote);
+        int i = -1;
+        for (int clave : lote) {
+            int alto = clave >> 16;
+            // El lote está ordenado: el bloque solo cambia cuando cambian los bits altos
+            if (i < 0 || altos[i] != alto) {
+                i = buscarAlto(alto);
+                if (i < 0) i = agregarBloque(-i - 1, alto);
+            }
+            if (bloques[i].agregar((char) clave)) {
+                cardinalidad++;
+                if (indice != null) indice.agregar(clave, ubicacion);
+            }
+        }
+    }
+
+    @Override
+    public boolean eliminar(int clave) {
+        int i = buscarAlto(clave >> 16);
+        if (i < 0 || !bloques[i].quitar((char) clave)) return false;
+        if (bloques[i].n == 0) quitarBloque(i);
+        cardinalidad--;
+        if (indice != null) indice.quitar(clave, ubicacion);
+        return true;
+    }
+
+    @Override
+    public boolean buscar(int clave) {
+        int i = buscarAlto(clave >> 16);
+        return i >= 0 && bloques[i].contiene((char) clave);
+    }
+
+    @Override
+    public int[] claves() {
+        int[] resultado = new int[cardinalidad];
+        int pos = 0;
+        for (int i = 0; i < cantidadBloques; i++) {
+            pos = bloques[i].volcar(altos[i] << 16, resultado, pos);
+        }
+        return resultado;
+    }
+
+    @Override
+    public int cantidadClaves() {
+        return cardinalidad;
+    }
+
+    @Override
+    public long bytesEstimados() {
+        long total = 48 + 16 + 4L * altos.length + 16 + 8L * bloques.length;
+        for (int i = 0; i < cantidadBloques; i++) total += bloques[i].bytes();
+        return total;
+    }
+
+    // Copia sin vincular al índice de inventario
+    public MapaBitsProductos copia() {
+        return unir(new MapaBitsProductos());
+    }
+
+    // Claves presentes en este conjunto o en el otro
+    public MapaBitsProductos unir(MapaBitsProductos otro) {
+        MapaBitsProductos r = new MapaBitsProductos();
+        int i = 0, j = 0;
+        while (i < cantidadBloques || j < otro.cantidadBloques) {
+            if (j == otro.cantidadBloques || (i < cantidadBloques && altos[i] < otro.altos[j])) {
+                r.anexar(altos[i], bloques[i].copia());
+                i++;
+            } else if (i == cantidadBloques || otro.altos[j] < altos[i]) {
+                r.anexar(otro.altos[j], otro.bloques[j].copia());
+                j++;
+            } else {
+                r.anexar(altos[i], bloques[i].unir(otro.bloques[j]));
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    // Claves presentes en ambos conjuntos
+    public MapaBitsProductos intersectar(MapaBitsProductos otro) {
+        MapaBitsProductos r = new MapaBitsProductos();
+        int i = 0, j = 0;
+        while (i < cantidadBloques && j < otro.cantidadBloques) {
+            if (altos[i] < otro.altos[j]) {
+                i++;
+            } else if (otro.altos[j] < altos[i]) {
+                j++;
+            } else {
+                Bloque b = bloques[i].intersectar(otro.bloques[j]);
+                if (b.n > 0) r.anexar(altos[i], b);
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    // Tamaño de la intersección sin construirla
+    public int cardinalidadInterseccion(MapaBitsProductos otro) {
+        int total = 0;
+        int i = 0, j = 0;
+        while (i < cantidadBloques && j < otro.cantidadBloques) {
+            if (altos[i] < otro.altos[j]) {
+                i++;
+            } else if (otro.altos[j] < altos[i]) {
+                j++;
+            } else {
+                total += bloques[i].cardinalidadInterseccion(otro.bloques[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public boolean contieneTodos(int[] claves) {
+        for (int clave : claves) {
+            if (!buscar(clave)) return false;
+        }
+        return true;
+    }
+
+    // Un bloque por línea, con las claves agrupadas en intervalos consecutivos
+    @Override
+    public String mostrarComoTexto() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{").append(cardinalidad).append(" claves, ").append(cantidadBloques).append(" bloques}\n");
+        for (int i = 0; i < cantidadBloques; i++) {
+            Bloque b = bloques[i];
+            sb.append("  [").append(b.bits != null ? "bits" : "arreglo").append(" ").append(b.n).append("] ");
+            int[] claves = new int[b.n];
+            b.volcar(altos[i] << 16, claves, 0);
+            int k = 0;
+            for (int intervalos = 0; k < claves.length && intervalos < 20; intervalos++) {
+                int fin = k;
+                while (fin + 1 < claves.length && claves[fin + 1] == claves[fin] + 1) fin++;
+                if (intervalos > 0) sb.append(", ");
+                sb.append(claves[k]);
+                if (fin > k) sb.append("..").append(claves[fin]);
+                k = fin + 1;
+            }
+            if (k < claves.length) sb.append(", ...");
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    private int buscarAlto(int alto) {
+        return Arrays.binarySearch(altos, 0, cantidadBloques, alto);
+    }
+
+    private int agregarBloque(int i, int alto) {
+        if (cantidadBloques == altos.length) {
+            altos = Arrays.copyOf(altos, cantidadBloques * 2);
+            bloques = Arrays.copyOf(bloques, cantidadBloques * 2);
+        }
+        System.arraycopy(altos, i, altos, i + 1, cantidadBloques - i);
+        System.arraycopy(bloques, i, bloques, i + 1, cantidadBloques - i);
+        altos[i] = alto;
+        bloques[i] = new Bloque();
+        cantidadBloques++;
+        return i;
+    }
+
+    private void quitarBloque(int i) {
+        System.arraycopy(altos, i + 1, altos, i, cantidadBloques - i - 1);
+        System.arraycopy(bloques, i + 1, bloques, i, cantidadBloques - i - 1);
+        cantidadBloques--;
+        bloques[cantidadBloques] = null;
+    }
+
+    // Agrega un bloque al final; los altos deben llegar en orden
+    private void anexar(int alto, Bloque b) {
+        agregarBloque(cantidadBloques, alto);
+        bloques[cantidadBloques - 1] = b;
+        cardinalidad += b.n;
+    }
+
+    // 16 bits bajos de las claves de un bloque: arreglo ordenado o mapa de bits
+    private static final class Bloque {
+        char[] valores; // Modo arreglo
+        long[] bits;    // Modo mapa de bits, 1024 palabras
+        int n;
+
+        Bloque() {
+            this.valores = new char[4];
+        }
+
+        boolean contiene(char b) {
+            if (bits != null) return (bits[b >>> 6] & (1L << b)) != 0;
+            return Arrays.binarySearch(valores, 0, n, b) >= 0;
+        }
+
+        boolean agregar(char b) {
+            if (bits != null) {
+                long mascara = 1L << b;
+                if ((bits[b >>> 6] & mascara) != 0) return false;
+                bits[b >>> 6] |= mascara;
+                n++;
+                return true;
+            }
+            int p = Arrays.binarySearch(valores, 0, n, b);
+            if (p >= 0) return false;
+            if (n == LIMITE_ARREGLO) {
+                aMapaDeBits();
+                return agregar(b);
+            }
+            p = -p - 1;
+            if (n == valores.length) valores = Arrays.copyOf(valores, Math.min(LIMITE_ARREGLO, n * 2));
+            System.arraycopy(valores, p, valores, p + 1, n - p);
+            valores[p] = b;
+            n++;
+            return true;
+        }
+
+        boolean quitar(char b) {
+            if (bits != null) {
+                long mascara = 1L << b;
+                if ((bits[b >>> 6] & mascara) == 0) return false;
+                bits[b >>> 6] &= ~mascara;
+                n--;
+                if (n <= LIMITE_ARREGLO) aArreglo();
+                return true;
+            }
+            int p = Arrays.binarySearch(valores, 0, n, b);
+            if (p < 0) return false;
+            System.arraycopy(valores, p + 1, valores, p, n - p - 1);
+            n--;
+            return true;
+        }
+
+        int volcar(int base, int[] destino, int pos) {
+            if (bits == null) {
+                for (int k = 0; k < n; k++) destino[pos++] = base | valores[k];
+                return pos;
+            }
+            for (int w = 0; w < bits.length; w++) {
+                long palabra = bits[w];
+                while (palabra != 0) {
+                    destino[pos++] = base | (w << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return pos;
+        }
+
+        Bloque copia() {
+            Bloque c = new Bloque();
+            c.n = n;
+            if (bits != null) {
+                c.bits = bits.clone();
+                c.valores = null;
+            } else {
+                c.valores = Arrays.copyOf(valores, Math.max(4, n));
+            }
+            return c;
+        }
+
+        Bloque unir(Bloque o) {
+            Bloque r = new Bloque();
+            if (bits == null && o.bits == null && n + o.n <= LIMITE_ARREGLO) {
+                char[] mezcla = new char[Math.max(4, n + o.n)];
+                int i = 0, j = 0, k = 0;
+                while (i < n && j < o.n) {
+                    if (valores[i] < o.valores[j]) mezcla[k++] = valores[i++];
+                    else if (o.valores[j] < valores[i]) mezcla[k++] = o.valores[j++];
+                    else { mezcla[k++] = valores[i++]; j++; }
+                }
+                while (i < n) mezcla[k++] = valores[i++];
+                while (j < o.n) mezcla[k++] = o.valores[j++];
+                r.valores = mezcla;
+                r.n = k;
+                return r;
+            }
+            r.valores = null;
+            r.bits = new long[1024];
+            marcar(r.bits);
+            o.marcar(r.bits);
+            r.n = contarBits(r.bits);
+            if (r.n <= LIMITE_ARREGLO) r.aArreglo();
+            return r;
+        }
+
+        Bloque intersectar(Bloque o) {
+            Bloque r = new Bloque();
+            if (bits != null && o.bits != null) {
+                r.valores = null;
+                r.bits = new long[1024];
+                for (int w = 0; w < 1024; w++) r.bits[w] = bits[w] & o.bits[w];
+                r.n = contarBits(r.bits);
+                if (r.n <= LIMITE_ARREGLO) r.aArreglo();
+                return r;
+            }
+            // Al menos uno es arreglo (el más chico si ambos lo son): se filtra contra el otro
+            Bloque arreglo = bits == null && (o.bits != null || n <= o.n) ? this : o;
+            Bloque otro = arreglo == this ? o : this;
+            char[] comunes = new char[Math.max(4, arreglo.n)];
+            int k = 0;
+            for (int i = 0; i < arreglo.n; i++) {
+                if (otro.contiene(arreglo.valores[i])) comunes[k++] = arreglo.valores[i];
+            }
+            r.valores = comunes;
+            r.n = k;
+            return r;
+        }
+
+        int cardinalidadInterseccion(Bloque o) {
+            if (bits != null && o.bits != null) {
+                int total = 0;
+                for (int w = 0; w < 1024; w++) total += Long.bitCount(bits[w] & o.bits[w]);
+                return total;
+            }
+            Bloque arreglo = bits == null && (o.bits != null || n <= o.n) ? this : o;
+            Bloque otro = arreglo == this ? o : this;
+            int total = 0;
+            for (int i = 0; i < arreglo.n; i++) {
+                if (otro.contiene(arreglo.valores[i])) total++;
+            }
+            return total;
+        }
+
+        long bytes() {
+            return 32 + (bits != null ? 16 + 8L * bits.length : 16 + 2L * valores.length);
+        }
+
+        private void marcar(long[] destino) {
+            if (bits != null) {
+                for (int w = 0; w < 1024; w++) destino[w] |= bits[w];
+            } else {
+                for (int i = 0; i < n; i++) destino[valores[i] >>> 6] |= 1L << valores[i];
+            }
+        }
+
+        private static int contarBits(long[] bits) {
+            int total = 0;
+            for (long palabra : bits) total += Long.bitCount(palabra);
+            return total;
+        }
+
+        private void aMapaDeBits() {
+            long[] nuevos = new long[1024];
+            marcar(nuevos);
+            bits = nuevos;
+            valores = null;
+        }
+
+        private void aArreglo() {
+            char[] nuevos = new char[Math.max(4, n)];
+            int k = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long palabra = bits[w];
+                while (palabra != 0) {
+                    nuevos[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            valores = nuevos;
+            bits = null;
+        }
+    }
+}
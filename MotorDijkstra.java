@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Dijkstra reutilizable sobre una instantánea CSR. Los arreglos de trabajo se reservan
+// una sola vez y entre consultas solo se reinician los nodos que la anterior tocó,
+// de modo que una consulta no crea objetos ni hace boxing.
+public class MotorDijkstra {
+    // Último motor de cada hilo, para las consultas que no guardan el suyo
+    private static final ThreadLocal<MotorDijkstra> DEL_HILO = new ThreadLocal<>();
+
+    private final GrafoCompacto g;
+    private final double[] distancias;
+    private final int[] predecesores;
+    private final HeapIndexado cola;
+    private final int[] tocados;
+    private int cantidadTocados;
+    private int asentados;
+    private int origen = -1;
+
+    public MotorDijkstra(GrafoCompacto g) {
+        int n = g.cantidadNodos();
+        this.g = g;
+        this.distancias = new double[n];
+        this.predecesores = new int[n];
+        this.cola = new HeapIndexado(n);
+        this.tocados = new int[n];
+        Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecesores, -1);
+    }
+
+    // Motor del hilo actual sobre g; solo se crea uno nuevo cuando cambia la instantánea
+    public static MotorDijkstra para(GrafoCompacto g) {
+        MotorDijkstra m = DEL_HILO.get();
+        if (m == null || m.g != g) {
+            m = new MotorDijkstra(g);
+            DEL_HILO.set(m);
+        }
+        return m;
+    }
+
+    public GrafoCompacto getGrafo() {
+        return g;
+    }
+
+    // Ejecuta desde origen; si destino >= 0 se detiene en cuanto ese nodo queda asentado.
+    // Devuelve la distancia al destino (o 0 si se recorrió todo el grafo).
+    public double ejecutar(int origen, int destino) {
+        reiniciar();
+        this.origen = origen;
+        if (origen < 0) return Double.POSITIVE_INFINITY;
+
+        tocar(origen, 0.0, -1);
+        cola.insertarOActualizar(origen, 0.0);
+
+        while (!cola.estaVacio()) {
+            int u = cola.extraerMinimo();
+            asentados++;
+            if (u == destino) {
+                cola.limpiar();
+                break;
+            }
+
+            relajar(u);
+        }
+        return destino >= 0 ? distancias[destino] : 0.0;
+    }
+
+    // Búsqueda con varios destinos posibles: se detiene en cuanto quedan asentados k nodos
+    // que cumplen esObjetivo. Los deja en encontrados por distancia creciente y devuelve
+    // cuántos halló (menos de k si el resto del grafo no tiene más).
+    public int ejecutarHasta(int origen, IntPredicate esObjetivo, int k, int[] encontrados) {
+        reiniciar();
+        this.origen = origen;
+        if (origen < 0 || k <= 0) return 0;
+
+        tocar(origen, 0.0, -1);
+        cola.insertarOActualizar(origen, 0.0);
+
+        int hallados = 0;
+        while (!cola.estaVacio()) {
+            int u = cola.extraerMinimo();
+            asentados++;
+            if (esObjetivo.test(u)) {
+                encontrados[hallados++] = u;
+                if (hallados == k) {
+                    cola.limpiar();
+                    break;
+                }
+            }
+            relajar(u);
+        }
+        return hallados;
+    }
+
+    private void relajar(int u) {
+        double du = distancias[u];
+        for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+            int v = g.destinos[e];
+            double nueva = du + g.pesos[e];
+            if (nueva < distancias[v]) {
+                tocar(v, nueva, u);
+                cola.insertarOActualizar(v, nueva);
+            }
+        }
+    }
+
+    public double distancia(int nodo) {
+        return distancias[nodo];
+    }
+
+    public int predecesor(int nodo) {
+        return predecesores[nodo];
+    }
+
+    public int getAsentados() {
+        return asentados;
+    }
+
+    public Camino camino(int destino) {
+        if (destino < 0) return Camino.inexistente(asentados);
+        return Camino.reconstruir(g, predecesores, destino, distancias[destino], asentados);
+    }
+
+    // Copia el estado de la última consulta para que sobreviva a la siguiente
+    public ResultadoDijkstra resultado() {
+        return new ResultadoDijkstra(g, origen, distancias.clone(), predecesores.clone(), asentados);
+    }
+
+    private void tocar(int v, double distancia, int predecesor) {
+        if (distancias[v] == Double.POSITIVE_INFINITY) {
+            tocados[cantidadTocados++] = v;
+        }
+        distancias[v] = distancia;
+        predecesores[v] = predecesor;
+    }
+
+    private void reiniciar() {
+        for (int i = 0; i < cantidadTocados; i++) {
+            int v = tocados[i];
+            distancias[v] = Double.POSITIVE_INFINITY;
+            predecesores[v] = -1;
+        }
+        cantidadTocados = 0;
+        asentados = 0;
+        cola.limpiar();
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Recorridos en anchura y profundidad sobre una instantánea CSR, sin recursión: la pila y
+// la cola son arreglos propios, así que un pasillo de millones de ubicaciones no desborda
+// la pila de Java. Las marcas de visita son enteros con el número de ronda; empezar un
+// recorrido nuevo solo incrementa la ronda, sin limpiar ni reservar nada.
+// Los resultados se entregan a un VisitanteRecorrido o se consumen con un iterador perezoso;
+// un motor hace un recorrido a la vez y empezar otro invalida el iterador anterior.
+public class MotorRecorrido {
+    public static final int ARISTA_ARBOL = 0;     // Descubre su destino
+    public static final int ARISTA_RETROCESO = 1; // Destino en la pila actual: cierra un ciclo
+    public static final int ARISTA_VISTA = 2;     // Destino ya descubierto (avance o cruce)
+
+    // Último motor de cada hilo: mientras la instantánea no cambie se reutiliza con sus arreglos
+    private static final ThreadLocal<MotorRecorrido> DEL_HILO = new ThreadLocal<>();
+
+    private final GrafoCompacto g;
+    private final int[] marca;    // == ronda si el nodo fue descubierto en esta ronda
+    private final int[] cerrado;  // == ronda si el nodo ya salió de la pila
+    private final int[] nodos;    // Pila en profundidad, cola en anchura
+    private final int[] auxiliar; // Próxima arista de cada nodo de la pila, o nivel en la cola
+    private int ronda;
+    private int visitados;
+
+    public MotorRecorrido(GrafoCompacto g) {
+        int n = g.cantidadNodos();
+        this.g = g;
+        this.marca = new int[n];
+        this.cerrado = new int[n];
+        this.nodos = new int[n];
+        this.auxiliar = new int[n];
+    }
+
+    // Motor del hilo actual sobre g; solo se crea uno nuevo cuando cambia la instantánea.
+    // No sirve para empezar otro recorrido desde el visitante de uno en curso en el mismo hilo.
+    public static MotorRecorrido para(GrafoCompacto g) {
+        MotorRecorrido m = DEL_HILO.get();
+        if (m == null || m.g != g) {
+            m = new MotorRecorrido(g);
+            DEL_HILO.set(m);
+        }
+        return m;
+    }
+
+    public GrafoCompacto getGrafo() {
+        return g;
+    }
+
+    // Nodos descubiertos en el último recorrido
+    public int visitados() {
+        return visitados;
+    }
+
+    public boolean fueVisitado(int nodo) {
+        return marca[nodo] == ronda;
+    }
+
+    // Devuelve false si el visitante lo detuvo
+    public boolean anchura(int origen, VisitanteRecorrido v) {
+        nuevaRonda();
+        if (origen < 0) return true;
+        int cabeza = 0, fin = 0;
+        descubrir(origen);
+        nodos[fin] = origen;
+        auxiliar[fin++] = 0;
+
+        while (cabeza < fin) {
+            int u = nodos[cabeza];
+            int nivel = auxiliar[cabeza++];
+            if (!v.entrar(u, nivel)) return false;
+            for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                int w = g.destinos[e];
+                if (marca[w] == ronda) {
+                    if (!v.arista(u, w, ARISTA_VISTA)) return false;
+                    continue;
+                }
+                if (!v.arista(u, w, ARISTA_ARBOL)) return false;
+                descubrir(w);
+                nodos[fin] = w;
+                auxiliar[fin++] = nivel + 1;
+            }
+            if (!v.salir(u)) return false;
+        }
+        return true;
+    }
+
+    public boolean profundidad(int origen, VisitanteRecorrido v) {
+        nuevaRonda();
+        return origen < 0 || profundidadDesde(origen, v);
+    }
+
+    // Profundidad desde cada nodo todavía no visitado, en orden de id, compartiendo la ronda:
+    // cada nodo se visita una vez y las aristas de retroceso marcan todos los ciclos
+    public boolean profundidadCompleta(VisitanteRecorrido v) {
+        nuevaRonda();
+        for (int u = 0; u < g.cantidadNodos(); u++) {
+            if (marca[u] != ronda && !profundidadDesde(u, v)) return false;
+        }
+        return true;
+    }
+
+    private boolean profundidadDesde(int origen, VisitanteRecorrido v) {
+        descubrir(origen);
+        if (!v.entrar(origen, 0)) return false;
+        nodos[0] = origen;
+        auxiliar[0] = g.offsets[origen];
+        int tope = 1;
+
+        while (tope > 0) {
+            int u = nodos[tope - 1];
+            int e = auxiliar[tope - 1];
+            if (e == g.offsets[u + 1]) {
+                cerrado[u] = ronda;
+                tope--;
+                if (!v.salir(u)) return false;
+                continue;
+            }
+            auxiliar[tope - 1] = e + 1;
+            int w = g.destinos[e];
+            if (marca[w] == ronda) {
+                if (!v.arista(u, w, cerrado[w] == ronda ? ARISTA_VISTA : ARISTA_RETROCESO)) return false;
+                continue;
+            }
+            if (!v.arista(u, w, ARISTA_ARBOL)) return false;
+            descubrir(w);
+            if (!v.entrar(w, tope)) return false;
+            nodos[tope] = w;
+            auxiliar[tope++] = g.offsets[w];
+        }
+        return true;
+    }
+
+    // Nodos en el orden en que el recorrido en anchura los saca de la cola, calculados a demanda
+    public PrimitiveIterator.OfInt ordenAnchura(int origen) {
+        nuevaRonda();
+        return new Iterador(origen, false);
+    }
+
+    // Preorden del recorrido en profundidad, calculado a demanda
+    public PrimitiveIterator.OfInt ordenProfundidad(int origen) {
+        nuevaRonda();
+        return new Iterador(origen, true);
+    }
+
+    private void descubrir(int nodo) {
+        marca[nodo] = ronda;
+        visitados++;
+    }
+
+    private void nuevaRonda() {
+        if (ronda == Integer.MAX_VALUE) {
+            Arrays.fill(marca, 0);
+            Arrays.fill(cerrado, 0);
+            ronda = 0;
+        }
+        ronda++;
+        visitados = 0;
+    }
+
+    private final class Iterador implements PrimitiveIterator.OfInt {
+        private final int suRonda = ronda;
+        private final boolean enProfundidad;
+        private int cabeza, fin;     // Cola en anchura; en profundidad, fin es el tope de la pila
+        private int pendiente = -1;  // Próximo nodo a devolver en profundidad
+
+        Iterador(int origen, boolean enProfundidad) {
+            this.enProfundidad = enProfundidad;
+            if (origen < 0) return;
+            descubrir(origen);
+            if (enProfundidad) pendiente = origen;
+            else nodos[fin++] = origen;
+        }
+
+        @Override
+        public boolean hasNext() {
+            vigente();
+            if (!enProfundidad) return cabeza < fin;
+            if (pendiente < 0) avanzar();
+            return pendiente >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (enProfundidad) {
+                int u = pendiente;
+                pendiente = -1;
+                nodos[fin] = u;
+                auxiliar[fin++] = g.offsets[u];
+                return u;
+            }
+            int u = nodos[cabeza++];
+            for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                int w = g.destinos[e];
+                if (marca[w] != ronda) {
+                    descubrir(w);
+                    nodos[fin++] = w;
+                }
+            }
+            return u;
+        }
+
+        // Baja por la pila hasta encontrar el próximo nodo sin descubrir
+        private void avanzar() {
+            while (fin > 0) {
+                int u = nodos[fin - 1];
+                int e = auxiliar[fin - 1];
+                if (e == g.offsets[u + 1]) {
+                    fin--;
+                    continue;
+                }
+                auxiliar[fin - 1] = e + 1;
+                int w = g.destinos[e];
+                if (marca[w] != ronda) {
+                    descubrir(w);
+                    pendiente = w;
+                    return;
+                }
+            }
+        }
+
+        private void vigente() {
+            if (suRonda != ronda) throw new ConcurrentModificationException("El motor empezó otro recorrido");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.List;
+
+// Recibe avisos de los cambios del grafo. Los avisos específicos llegan primero y
+// después grafoModificado, una vez por operación y con la versión ya incrementada.
+// Cuando se elimina una ubicación, antes se avisa la eliminación de cada ruta entrante;
+// sus rutas salientes desaparecen junto con ella.
+public interface OyenteGrafo {
+    default void grafoModificado() {}
+
+    default void ubicacionAgregada(Ubicacion u) {}
+
+    default void ubicacionEliminada(Ubicacion u) {}
+
+    default void ubicacionRenombrada(Ubicacion u, String nombreAnterior) {}
+
+    default void ubicacionMovida(Ubicacion u) {}
+
+    default void rutaAgregada(Ubicacion origen, Ruta ruta) {}
+
+    default void rutaEliminada(Ubicacion origen, Ruta ruta) {}
+
+    default void rutaModificada(Ubicacion origen, Ruta ruta, double pesoAnterior) {}
+
+    // Muchas ubicaciones y rutas agregadas de una vez (importación); por defecto se avisa
+    // cada una como si se hubiera agregado sola
+    default void cargaMasiva(List<Ubicacion> nuevas, List<Ruta> rutas) {
+        for (Ubicacion u : nuevas) ubicacionAgregada(u);
+        for (Ruta r : rutas) rutaAgregada(r.origen, r);
+    }
+}
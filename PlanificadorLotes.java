@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Resuelve lotes de consultas de ruta sobre una instantánea del grafo. Las consultas se
+// agrupan por origen: cada origen distinto es una sola ejecución de Dijkstra que responde
+// a todas sus consultas, y los grupos se reparten entre los hilos de un ForkJoinPool.
+// Cada hilo reutiliza su propio MotorDijkstra, así que resolver una consulta no crea
+// objetos; solo se reservan los arreglos del lote y los de resultado.
+public class PlanificadorLotes {
+    private final GrafoCompacto g;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<MotorDijkstra> motores;
+
+    public PlanificadorLotes(GrafoCompacto g) {
+        this(g, ForkJoinPool.commonPool());
+    }
+
+    public PlanificadorLotes(GrafoCompacto g, ForkJoinPool pool) {
+        this.g = g;
+        this.pool = pool;
+        this.motores = ThreadLocal.withInitial(() -> new MotorDijkstra(g));
+    }
+
+    public GrafoCompacto getGrafo() {
+        return g;
+    }
+
+    // resultado[i] = distancia de origenes[i] a destinos[i] (ids densos de la instantánea;
+    // un id negativo da infinito)
+    public double[] distancias(int[] origenes, int[] destinos) {
+        validarLargos(origenes, destinos);
+        double[] resultado = new double[origenes.length];
+        Grupos grupos = new Grupos(origenes);
+        enParalelo(grupos.cantidad, k -> {
+            MotorDijkstra motor = resolverGrupo(grupos, k, destinos);
+            for (int j = grupos.inicios[k]; j < grupos.inicios[k + 1]; j++) {
+                int q = grupos.orden[j];
+                resultado[q] = motor == null || destinos[q] < 0
+                        ? Double.POSITIVE_INFINITY : motor.distancia(destinos[q]);
+            }
+        });
+        return resultado;
+    }
+
+    public Camino[] caminos(int[] origenes, int[] destinos) {
+        validarLargos(origenes, destinos);
+        Camino[] resultado = new Camino[origenes.length];
+        Grupos grupos = new Grupos(origenes);
+        enParalelo(grupos.cantidad, k -> {
+            MotorDijkstra motor = resolverGrupo(grupos, k, destinos);
+            for (int j = grupos.inicios[k]; j < grupos.inicios[k + 1]; j++) {
+                int q = grupos.orden[j];
+                resultado[q] = motor == null ? Camino.inexistente(0) : motor.camino(destinos[q]);
+            }
+        });
+        return resultado;
+    }
+
+    // Consultas solo de origen: resultado[i][v] = distancia de origenes[i] al nodo v.
+    // Las consultas con el mismo origen comparten el arreglo.
+    public double[][] distanciasDesde(int[] origenes) {
+        double[][] resultado = new double[origenes.length][];
+        Grupos grupos = new Grupos(origenes);
+        int n = g.cantidadNodos();
+        enParalelo(grupos.cantidad, k -> {
+            int origen = origenes[grupos.orden[grupos.inicios[k]]];
+            double[] fila = new double[n];
+            if (origen < 0) {
+                Arrays.fill(fila, Double.POSITIVE_INFINITY);
+            } else {
+                MotorDijkstra motor = motores.get();
+                motor.ejecutar(origen, -1);
+                for (int v = 0; v < n; v++) fila[v] = motor.distancia(v);
+            }
+            for (int j = grupos.inicios[k]; j < grupos.inicios[k + 1]; j++) {
+                resultado[grupos.orden[j]] = fila;
+            }
+        });
+        return resultado;
+    }
+
+    public double[] distancias(String[] origenes, String[] destinos) {
+        return distancias(indices(origenes), indices(destinos));
+    }
+
+    public Camino[] caminos(String[] origenes, String[] destinos) {
+        return caminos(indices(origenes), indices(destinos));
+    }
+
+    public double[][] distanciasDesde(String[] origenes) {
+        return distanciasDesde(indices(origenes));
+    }
+
+    // Ejecuta Dijkstra para el grupo k; con una sola consulta se detiene en su destino.
+    // Devuelve null si el origen no existe.
+    private MotorDijkstra resolverGrupo(Grupos grupos, int k, int[] destinos) {
+        int primera = grupos.orden[grupos.inicios[k]];
+        int origen = grupos.origenes[primera];
+        if (origen < 0) return null;
+        boolean unica = grupos.inicios[k + 1] - grupos.inicios[k] == 1;
+        if (unica && destinos[primera] < 0) return null;
+        MotorDijkstra motor = motores.get();
+        motor.ejecutar(origen, unica ? destinos[primera] : -1);
+        return motor;
+    }
+
+    private int[] indices(String[] nombres) {
+        int[] ids = new int[nombres.length];
+        for (int i = 0; i < nombres.length; i++) ids[i] = g.indice(nombres[i]);
+        return ids;
+    }
+
+    private static void validarLargos(int[] origenes, int[] destinos) {
+        if (origenes.length != destinos.length) {
+            throw new IllegalArgumentException("Orígenes y destinos deben tener el mismo largo");
+        }
+    }
+
+    private void enParalelo(int cantidad, IntConsumer tarea) {
+        if (cantidad == 0) return;
+        pool.invoke(new Tarea(0, cantidad, tarea));
+    }
+
+    // Divide el rango de grupos hasta llegar a uno por tarea; cada grupo es un Dijkstra completo.
+    // ForkJoinTask es serializable, pero estas tareas nunca salen del proceso
+    @SuppressWarnings("serial")
+    private static final class Tarea extends RecursiveAction {
+        private final int desde;
+        private final int hasta;
+        private final IntConsumer trabajo;
+
+        Tarea(int desde, int hasta, IntConsumer trabajo) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.trabajo = trabajo;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                trabajo.accept(desde);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Tarea(desde, medio, trabajo), new Tarea(medio, hasta, trabajo));
+        }
+    }
+
+    // Consultas ordenadas por origen: el grupo k ocupa orden[inicios[k] .. inicios[k + 1])
+    private static final class Grupos {
+        final int[] origenes;
+        final int[] orden;
+        final int[] inicios;
+        final int cantidad;
+
+        Grupos(int[] origenes) {
+            this.origenes = origenes;
+            int m = origenes.length;
+            long[] pares = new long[m];
+            for (int i = 0; i < m; i++) pares[i] = ((long) origenes[i] << 32) | i;
+            Arrays.sort(pares);
+
+            orden = new int[m];
+            int[] cortes = new int[m + 1];
+            int grupos = 0;
+            for (int i = 0; i < m; i++) {
+                orden[i] = (int) pares[i];
+                if (i == 0 || (int) (pares[i] >> 32) != (int) (pares[i - 1] >> 32)) cortes[grupos++] = i;
+            }
+            cortes[grupos] = m;
+            inicios = cortes;
+            cantidad = grupos;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Ordena las paradas de un pedido para que el preparador camine lo menos posible.
+// Calcula la matriz de distancias entre inicio y paradas con PlanificadorLotes, arma una
+// semilla por vecino más cercano y la mejora con 2-opt y Or-opt (mover tramos de 1 a 3
+// paradas) hasta llegar a un óptimo local o agotar el presupuesto de tiempo. En cada vuelta
+// se evalúan todos los movimientos candidatos en paralelo y se aplica el mejor.
+// Las distancias son dirigidas: invertir un tramo cambia su costo, y se tiene en cuenta.
+// Un par de paradas sin camino entre sí solo se penaliza; si aun así queda en el orden final,
+// la parada a la que no se puede llegar se salta y se informa como inalcanzable.
+public class PlanificadorRecorrido {
+    private static final int MINIMO_PARALELO = 64; // Con menos paradas no conviene repartir
+    private static final int TRAMO_MAXIMO = 3;
+
+    private final GrafoCompacto g;
+    private final PlanificadorLotes lotes;
+
+    public PlanificadorRecorrido(GrafoCompacto g) {
+        this.g = g;
+        this.lotes = new PlanificadorLotes(g);
+    }
+
+    // El presupuesto se cuenta desde la llamada; la matriz y la semilla se calculan siempre
+    // completas y la mejora se corta cuando se agota
+    public Recorrido planificar(String inicio, Collection<String> paradas, boolean volverAlInicio, long presupuestoMs) {
+        long limite = System.nanoTime() + presupuestoMs * 1_000_000L;
+        int origen = g.indice(inicio);
+        if (origen < 0) throw new IllegalArgumentException("Ubicación no encontrada: " + inicio);
+
+        // Nodo 0 = inicio; 1..k = paradas sin repetir
+        List<String> inalcanzables = new ArrayList<>();
+        LinkedHashSet<Integer> unicas = new LinkedHashSet<>();
+        for (String p : paradas) {
+            int id = g.indice(p);
+            if (id < 0) inalcanzables.add(p);
+            else if (id != origen) unicas.add(id);
+        }
+        int[] ids = new int[unicas.size() + 1];
+        ids[0] = origen;
+        int k = 1;
+        for (int id : unicas) ids[k++] = id;
+
+        double[][] filas = lotes.distanciasDesde(ids);
+        int[] validos = IntStream.range(0, ids.length)
+                .filter(i -> i == 0 || (filas[0][ids[i]] < Double.POSITIVE_INFINITY
+                        && (!volverAlInicio || filas[i][origen] < Double.POSITIVE_INFINITY)))
+                .toArray();
+        for (int i = 1; i < ids.length; i++) {
+            if (Arrays.binarySearch(validos, i) < 0) inalcanzables.add(g.nombres[ids[i]]);
+        }
+
+        // Matriz entre los nodos válidos; un par sin camino se penaliza para que nunca convenga
+        int m = validos.length;
+        double[][] d = new double[m][m];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                double x = filas[validos[i]][ids[validos[j]]];
+                d[i][j] = x < Double.POSITIVE_INFINITY ? x : Optimizador.PENALIZACION;
+            }
+        }
+
+        Optimizador opt = new Optimizador(d, volverAlInicio);
+        opt.vecinoMasCercano();
+        boolean optimoLocal = opt.mejorar(limite);
+
+        // Se recorre el orden elegido saltando las paradas sin camino desde la anterior visitada.
+        // Toda parada válida puede volver al inicio, así que el regreso nunca se salta.
+        int[] visita = new int[opt.s.length];
+        int v = 0;
+        for (int pos : opt.s) {
+            if (v > 0 && filas[validos[visita[v - 1]]][ids[validos[pos]]] == Double.POSITIVE_INFINITY) {
+                inalcanzables.add(g.nombres[ids[validos[pos]]]);
+                continue;
+            }
+            visita[v++] = pos;
+        }
+        visita = Arrays.copyOf(visita, v);
+
+        List<String> orden = new ArrayList<>();
+        for (int pos : visita) orden.add(g.nombres[ids[validos[pos]]]);
+        return new Recorrido(orden, unir(visita, ids, validos), inalcanzables, opt.mejoras, optimoLocal);
+    }
+
+    // Concatena los caminos mínimos entre paradas consecutivas, todas alcanzables entre sí
+    private Camino unir(int[] s, int[] ids, int[] validos) {
+        MotorDijkstra motor = new MotorDijkstra(g);
+        List<String> nombres = new ArrayList<>();
+        nombres.add(g.nombres[ids[validos[s[0]]]]);
+        double total = 0;
+        int explorados = 0;
+        for (int i = 0; i + 1 < s.length; i++) {
+            int a = ids[validos[s[i]]], b = ids[validos[s[i + 1]]];
+            total += motor.ejecutar(a, b);
+            Camino tramo = motor.camino(b);
+            explorados += tramo.nodosExplorados;
+            nombres.addAll(tramo.ubicaciones.subList(1, tramo.ubicaciones.size()));
+        }
+        return new Camino(nombres, total, explorados);
+    }
+
+    // Búsqueda local sobre la secuencia s: s[0] es el inicio y, si el recorrido es cerrado,
+    // el último elemento es otra vez el inicio; ninguno de los dos extremos fijos se mueve
+    static final class Optimizador {
+        static final double PENALIZACION = 1e15;
+        private static final double EPSILON = 1e-9;
+
+        final double[][] d;
+        final boolean cerrado;
+        int[] s;
+        int mejoras;
+        private double[] ida;    // ida[x] = costo de s[0..x] recorrido hacia adelante
+        private double[] vuelta; // vuelta[x] = costo de s[0..x] recorrido al revés
+
+        Optimizador(double[][] d, boolean cerrado) {
+            this.d = d;
+            this.cerrado = cerrado;
+        }
+
+        void vecinoMasCercano() {
+            int m = d.length;
+            s = new int[cerrado ? m + 1 : m];
+            boolean[] usado = new boolean[m];
+            usado[0] = true;
+            for (int pos = 1; pos < m; pos++) {
+                int actual = s[pos - 1], mejor = -1;
+                for (int j = 1; j < m; j++) {
+                    if (!usado[j] && (mejor < 0 || d[actual][j] < d[actual][mejor])) mejor = j;
+                }
+                usado[mejor] = true;
+                s[pos] = mejor;
+            }
+            if (cerrado) s[m] = 0;
+        }
+
+        double costo() {
+            double total = 0;
+            for (int i = 0; i + 1 < s.length; i++) total += d[s[i]][s[i + 1]];
+            return total;
+        }
+
+        // Devuelve true si terminó en un óptimo local, false si se acabó el tiempo
+        boolean mejorar(long limite) {
+            while (true) {
+                if (System.nanoTime() > limite) return false;
+                prefijos();
+                Movimiento mejor = mejorMovimiento();
+                if (mejor == null) return true;
+                aplicar(mejor);
+                mejoras++;
+            }
+        }
+
+        private void prefijos() {
+            ida = new double[s.length];
+            vuelta = new double[s.length];
+            for (int x = 1; x < s.length; x++) {
+                ida[x] = ida[x - 1] + d[s[x - 1]][s[x]];
+                vuelta[x] = vuelta[x - 1] + d[s[x]][s[x - 1]];
+            }
+        }
+
+        // Última posición movible
+        private int ultima() {
+            return cerrado ? s.length - 2 : s.length - 1;
+        }
+
+        private Movimiento mejorMovimiento() {
+            IntStream posiciones = IntStream.rangeClosed(1, ultima());
+            if (s.length >= MINIMO_PARALELO) posiciones = posiciones.parallel();
+            return posiciones.mapToObj(this::mejorDesde)
+                    .filter(Objects::nonNull)
+                    .min(Comparator.comparingDouble(mv -> mv.delta))
+                    .orElse(null);
+        }
+
+        // Mejor movimiento que empieza en la posición i (solo lee s y los prefijos)
+        private Movimiento mejorDesde(int i) {
+            Movimiento mejor = null;
+            int ult = ultima();
+
+            // 2-opt: invertir s[i..j]
+            for (int j = i + 1; j <= ult; j++) {
+                double antes = d[s[i - 1]][s[i]] + (ida[j] - ida[i]);
+                double despues = d[s[i - 1]][s[j]] + (vuelta[j] - vuelta[i]);
+                if (j + 1 < s.length) {
+                    antes += d[s[j]][s[j + 1]];
+                    despues += d[s[i]][s[j + 1]];
+                }
+                double delta = despues - antes;
+                if (delta < -EPSILON && (mejor == null || delta < mejor.delta)) {
+                    mejor = new Movimiento(delta, false, i, j, 0);
+                }
+            }
+
+            // Or-opt: llevar s[i..e] a continuación de s[p], sin invertirlo
+            for (int largo = 1; largo <= TRAMO_MAXIMO && i + largo - 1 <= ult; largo++) {
+                int e = i + largo - 1;
+                boolean hayDespues = e + 1 < s.length;
+                double quitar = d[s[i - 1]][s[i]] + (ida[e] - ida[i])
+                        + (hayDespues ? d[s[e]][s[e + 1]] - d[s[i - 1]][s[e + 1]] : 0);
+                for (int p = 0; p <= ult; p++) {
+                    if (p >= i - 1 && p <= e) continue;
+                    boolean haySiguiente = p + 1 < s.length;
+                    double poner = d[s[p]][s[i]] + (ida[e] - ida[i])
+                            + (haySiguiente ? d[s[e]][s[p + 1]] - d[s[p]][s[p + 1]] : 0);
+                    double delta = poner - quitar;
+                    if (delta < -EPSILON && (mejor == null || delta < mejor.delta)) {
+                        mejor = new Movimiento(delta, true, i, e, p);
+                    }
+                }
+            }
+            return mejor;
+        }
+
+        private void aplicar(Movimiento mv) {
+            if (!mv.orOpt) {
+                for (int a = mv.i, b = mv.j; a < b; a++, b--) {
+                    int tmp = s[a];
+                    s[a] = s[b];
+                    s[b] = tmp;
+                }
+                return;
+            }
+            int largo = mv.j - mv.i + 1;
+            int[] tramo = Arrays.copyOfRange(s, mv.i, mv.j + 1);
+            int[] nueva = new int[s.length];
+            int k = 0;
+            for (int x = 0; x < s.length; x++) {
+                if (x >= mv.i && x <= mv.j) continue;
+                nueva[k++] = s[x];
+                if (x == mv.p) {
+                    System.arraycopy(tramo, 0, nueva, k, largo);
+                    k += largo;
+                }
+            }
+            s = nueva;
+        }
+    }
+
+    private static final class Movimiento {
+        final double delta;
+        final boolean orOpt;
+        final int i, j, p; // 2-opt invierte s[i..j]; Or-opt mueve s[i..j] detrás de s[p]
+
+        Movimiento(double delta, boolean orOpt, int i, int j, int p) {
+            this.delta = delta;
+            this.orOpt = orOpt;
+            this.i = i;
+            this.j = j;
+            this.p = p;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Prueba de estrés de BTreeConcurrente con carga mixta: varios hilos insertan, eliminan y
+// buscan claves de un rango chico sobre el almacén de una ubicación mientras otro hilo recorre
+// claves(). Cada operación se anota con su clave, su resultado y su intervalo [inicio, fin].
+// Al terminar se comprueba:
+//  - Linealizabilidad: para cada clave, el historial admite un orden secuencial que respeta el
+//    tiempo real y la semántica de un conjunto (búsqueda de Wing y Gong con la poda de Lowe).
+//    La linealizabilidad es local, así que alcanza con revisar cada clave por separado.
+//  - claves(): sale ordenado y sin repetidos, incluye toda clave presente durante todo el
+//    recorrido y no incluye ninguna ausente durante todo el recorrido.
+//  - Con los hilos detenidos, el índice de inventario y el tamaño coinciden con el árbol.
+// Uso: java PruebaEstresInventario [hilos] [operacionesPorHilo] [claves] [rondas]
+public class PruebaEstresInventario {
+    static final byte INSERTAR = 0;
+    static final byte ELIMINAR = 1;
+    static final byte BUSCAR = 2;
+    static final int MAXIMO_RECORRIDOS = 2_000; // Por ronda, para acotar la verificación
+
+    public static void main(String[] args) throws Exception {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int operaciones = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int claves = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int rondas = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        if (hilos < 1 || operaciones < 1 || claves < 1 || rondas < 1) {
+            throw new IllegalArgumentException("Todos los parámetros deben ser positivos");
+        }
+
+        System.out.println("🧪 Estrés de BTreeConcurrente: " + hilos + " hilos × " + operaciones
+            + " operaciones sobre " + claves + " claves, " + rondas + " rondas");
+        boolean todoBien = true;
+        for (int r = 1; r <= rondas; r++) {
+            todoBien &= ronda(r, hilos, operaciones, claves);
+        }
+        System.out.println(todoBien ? "✅ Todas las rondas son linealizables" : "❌ Se encontraron violaciones");
+        if (!todoBien) System.exit(1);
+    }
+
+    private static boolean ronda(int numero, int hilos, int operaciones, int claves) throws InterruptedException {
+        Grafo grafo = new Grafo();
+        grafo.agregarUbicacion("Zona");
+        // Orden mínimo: nodos de 3 claves, así hay divisiones durante toda la ronda
+        BTreeConcurrente arbol = new BTreeConcurrente(2);
+        grafo.cambiarAlmacen("Zona", arbol);
+        Ubicacion zona = grafo.getUbicacion("Zona");
+
+        Historial[] historiales = new Historial[hilos];
+        List<ListadoClaves> recorridos = new ArrayList<>();
+        AtomicBoolean terminado = new AtomicBoolean();
+        CountDownLatch largada = new CountDownLatch(1);
+        Thread[] trabajadores = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            Historial historial = historiales[h] = new Historial(operaciones);
+            long semilla = 31L * numero + h;
+            trabajadores[h] = new Thread(() -> {
+                SplittableRandom azar = new SplittableRandom(semilla);
+                esperar(largada);
+                for (int i = 0; i < operaciones; i++) {
+                    int clave = azar.nextInt(claves);
+                    int tirada = azar.nextInt(10);
+                    byte tipo = tirada < 4 ? INSERTAR : tirada < 7 ? ELIMINAR : BUSCAR;
+                    long inicio = System.nanoTime();
+                    boolean resultado;
+                    if (tipo == INSERTAR) {
+                        arbol.insertar(clave);
+                        resultado = true;
+                    } else if (tipo == ELIMINAR) {
+                        resultado = arbol.eliminar(clave);
+                    } else {
+                        resultado = arbol.buscar(clave);
+                    }
+                    historial.anotar(clave, tipo, resultado, inicio, System.nanoTime());
+                }
+            }, "estres-" + h);
+            trabajadores[h].start();
+        }
+        Thread lector = new Thread(() -> {
+            esperar(largada);
+            while (!terminado.get() && recorridos.size() < MAXIMO_RECORRIDOS) {
+                long inicio = System.nanoTime();
+                int[] vistas = arbol.claves();
+                recorridos.add(new ListadoClaves(inicio, System.nanoTime(), vistas));
+            }
+        }, "estres-recorridos");
+        lector.start();
+
+        largada.countDown();
+        for (Thread t : trabajadores) t.join();
+        terminado.set(true);
+        lector.join();
+
+        // Operaciones agrupadas por clave
+        List<List<Operacion>> porClave = new ArrayList<>();
+        for (int k = 0; k < claves; k++) porClave.add(new ArrayList<>());
+        for (Historial historial : historiales) {
+            for (int i = 0; i < historial.n; i++) {
+                porClave.get(historial.claves[i]).add(new Operacion(historial.tipos[i], historial.resultados[i],
+                    historial.inicios[i], historial.fines[i]));
+            }
+        }
+
+        List<String> errores = new ArrayList<>();
+        for (int k = 0; k < claves && errores.size() < 10; k++) {
+            if (!linealizable(porClave.get(k))) {
+                errores.add("la clave " + k + " no admite un orden secuencial válido");
+            }
+        }
+        for (ListadoClaves r : recorridos) {
+            if (errores.size() >= 10) break;
+            revisarListado(r, porClave, errores);
+        }
+
+        // Estado final, sin hilos en curso
+        int[] finales = arbol.claves();
+        if (finales.length != arbol.cantidadClaves()) {
+            errores.add("cantidadClaves() = " + arbol.cantidadClaves() + " pero claves() tiene " + finales.length);
+        }
+        for (int k = 0; k < claves && errores.size() < 10; k++) {
+            boolean enArbol = arbol.buscar(k);
+            boolean enIndice = grafo.ubicacionesDeProducto(k).contains(zona);
+            if (enArbol != enIndice) {
+                errores.add("clave " + k + ": el árbol dice " + enArbol + " y el índice de inventario " + enIndice);
+            }
+            if (enArbol != (Arrays.binarySearch(finales, k) >= 0)) {
+                errores.add("clave " + k + ": buscar() y claves() no coinciden al final");
+            }
+        }
+
+        System.out.println((errores.isEmpty() ? "  ✔ " : "  ✘ ") + "Ronda " + numero + ": "
+            + (long) hilos * operaciones + " operaciones, " + recorridos.size() + " recorridos, "
+            + finales.length + " claves al final");
+        for (String error : errores) System.out.println("     ⚠️ " + error);
+        return errores.isEmpty();
+    }
+
+    private static void esperar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Estado del conjunto restringido a una clave: presente o no. Devuelve el estado posterior,
+    // o -1 si el resultado observado es imposible desde ese estado
+    private static int aplicar(boolean presente, Operacion o) {
+        switch (o.tipo) {
+            case INSERTAR:
+                return 1;
+            case ELIMINAR:
+                return o.resultado == presente ? 0 : -1;
+            default:
+                return o.resultado == presente ? (presente ? 1 : 0) : -1;
+        }
+    }
+
+    // Búsqueda de Wing y Gong: recorre los eventos en orden de tiempo y prueba linealizar cada
+    // operación cuya llamada aparece antes de la primera respuesta pendiente; si llega a una
+    // respuesta sin haberla linealizado, retrocede. Las configuraciones (operaciones ya
+    // linealizadas y estado) que ya fracasaron no se vuelven a explorar.
+    static boolean linealizable(List<Operacion> ops) {
+        int m = ops.size();
+        if (m == 0) return true;
+        if (m >= 1 << 20) throw new IllegalArgumentException("Demasiadas operaciones para una sola clave: " + m);
+        long base = Long.MAX_VALUE;
+        for (Operacion o : ops) base = Math.min(base, o.inicio);
+
+        // Llamadas antes que respuestas con el mismo instante: en el empate se consideran solapadas
+        int eventos = 2 * m;
+        long[] orden = new long[eventos];
+        for (int j = 0; j < m; j++) {
+            orden[2 * j] = ((ops.get(j).inicio - base) << 21) | j;
+            orden[2 * j + 1] = ((ops.get(j).fin - base) << 21) | (1L << 20) | j;
+        }
+        Arrays.sort(orden);
+
+        final int fin = -1;
+        int cabeza = eventos;
+        int[] siguiente = new int[eventos + 1];
+        int[] anterior = new int[eventos + 1];
+        int[] opDe = new int[eventos];
+        boolean[] esRespuesta = new boolean[eventos];
+        int[] llamada = new int[m];
+        int[] respuesta = new int[m];
+        int previo = cabeza;
+        for (int e = 0; e < eventos; e++) {
+            opDe[e] = (int) (orden[e] & ((1 << 20) - 1));
+            esRespuesta[e] = (orden[e] & (1L << 20)) != 0;
+            if (esRespuesta[e]) respuesta[opDe[e]] = e; else llamada[opDe[e]] = e;
+            siguiente[previo] = e;
+            anterior[e] = previo;
+            previo = e;
+        }
+        siguiente[previo] = fin;
+
+        long[] linealizadas = new long[(m + 63) / 64];
+        Set<Configuracion> vistas = new HashSet<>();
+        int[] pilaOp = new int[m];
+        boolean[] pilaEstado = new boolean[m];
+        int tope = 0;
+        boolean presente = false; // Cada ronda parte de un árbol vacío
+        int e = siguiente[cabeza];
+        while (siguiente[cabeza] != fin) {
+            int j = opDe[e];
+            if (!esRespuesta[e]) {
+                int nuevo = aplicar(presente, ops.get(j));
+                if (nuevo >= 0) {
+                    linealizadas[j >> 6] |= 1L << j;
+                    if (vistas.add(new Configuracion(linealizadas.clone(), nuevo == 1))) {
+                        pilaOp[tope] = j;
+                        pilaEstado[tope] = presente;
+                        tope++;
+                        presente = nuevo == 1;
+                        // Se saca la operación de la lista: primero la llamada, luego la respuesta
+                        for (int x : new int[] {llamada[j], respuesta[j]}) {
+                            siguiente[anterior[x]] = siguiente[x];
+                            if (siguiente[x] != fin) anterior[siguiente[x]] = anterior[x];
+                        }
+                        e = siguiente[cabeza];
+                        continue;
+                    }
+                    linealizadas[j >> 6] &= ~(1L << j);
+                }
+                e = siguiente[e];
+            } else {
+                // La operación de esta respuesta no pudo linealizarse antes: se deshace la última
+                if (tope == 0) return false;
+                tope--;
+                j = pilaOp[tope];
+                presente = pilaEstado[tope];
+                linealizadas[j >> 6] &= ~(1L << j);
+                // Se vuelve a enlazar en orden inverso al que se sacó
+                for (int x : new int[] {respuesta[j], llamada[j]}) {
+                    siguiente[anterior[x]] = x;
+                    if (siguiente[x] != fin) anterior[siguiente[x]] = x;
+                }
+                e = siguiente[llamada[j]];
+            }
+        }
+        return true;
+    }
+
+    // Una clave está presente durante todo [inicio, fin] del recorrido si alguna operación que
+    // terminó antes la dejó presente y ningún borrado exitoso pudo ocurrir entre esa operación
+    // y el final del recorrido; lo mismo para ausente con inserciones
+    private static void revisarListado(ListadoClaves r, List<List<Operacion>> porClave, List<String> errores) {
+        for (int i = 1; i < r.claves.length; i++) {
+            if (r.claves[i - 1] >= r.claves[i]) {
+                errores.add("claves() devolvió " + r.claves[i - 1] + " antes que " + r.claves[i]);
+                return;
+            }
+        }
+        for (int k = 0; k < porClave.size(); k++) {
+            Operacion ultimaPresente = null;
+            Operacion ultimaAusente = null;
+            for (Operacion o : porClave.get(k)) {
+                if (o.fin >= r.inicio) continue;
+                boolean dejaPresente = o.tipo == INSERTAR || (o.tipo == BUSCAR && o.resultado);
+                if (dejaPresente) {
+                    if (ultimaPresente == null || o.inicio > ultimaPresente.inicio) ultimaPresente = o;
+                } else if (ultimaAusente == null || o.inicio > ultimaAusente.inicio) {
+                    ultimaAusente = o;
+                }
+            }
+            boolean seguroPresente = ultimaPresente != null;
+            boolean seguroAusente = ultimaAusente != null;
+            for (Operacion o : porClave.get(k)) {
+                if (o.inicio >= r.fin) continue;
+                if (seguroPresente && o.tipo == ELIMINAR && o.resultado && o.fin > ultimaPresente.inicio) {
+                    seguroPresente = false;
+                }
+                if (seguroAusente && o.tipo == INSERTAR && o.fin > ultimaAusente.inicio) {
+                    seguroAusente = false;
+                }
+            }
+            // Sin ninguna operación previa la clave nunca se insertó antes del recorrido
+            if (ultimaPresente == null && ultimaAusente == null) {
+                seguroAusente = true;
+                for (Operacion o : porClave.get(k)) {
+                    if (o.tipo == INSERTAR && o.inicio < r.fin) seguroAusente = false;
+                }
+            }
+            boolean vista = Arrays.binarySearch(r.claves, k) >= 0;
+            if (seguroPresente && !vista) {
+                errores.add("claves() omitió " + k + ", presente durante todo el recorrido");
+            } else if (seguroAusente && vista) {
+                errores.add("claves() incluyó " + k + ", ausente durante todo el recorrido");
+            }
+        }
+    }
+
+    static final class Operacion {
+        final byte tipo;
+        final boolean resultado;
+        final long inicio;
+        final long fin;
+
+        Operacion(byte tipo, boolean resultado, long inicio, long fin) {
+            this.tipo = tipo;
+            this.resultado = resultado;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+
+    // Operaciones de un hilo en arreglos primitivos, para no alterar la carga al anotarlas
+    private static final class Historial {
+        final int[] claves;
+        final byte[] tipos;
+        final boolean[] resultados;
+        final long[] inicios;
+        final long[] fines;
+        int n;
+
+        Historial(int capacidad) {
+            this.claves = new int[capacidad];
+            this.tipos = new byte[capacidad];
+            this.resultados = new boolean[capacidad];
+            this.inicios = new long[capacidad];
+            this.fines = new long[capacidad];
+        }
+
+        void anotar(int clave, byte tipo, boolean resultado, long inicio, long fin) {
+            claves[n] = clave;
+            tipos[n] = tipo;
+            resultados[n] = resultado;
+            inicios[n] = inicio;
+            fines[n] = fin;
+            n++;
+        }
+    }
+
+    private static final class ListadoClaves {
+        final long inicio;
+        final long fin;
+        final int[] claves;
+
+        ListadoClaves(long inicio, long fin, int[] claves) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.claves = claves;
+        }
+    }
+
+    private static final class Configuracion {
+        final long[] linealizadas;
+        final boolean presente;
+
+        Configuracion(long[] linealizadas, boolean presente) {
+            this.linealizadas = linealizadas;
+            this.presente = presente;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Configuracion)) return false;
+            Configuracion otra = (Configuracion) o;
+            return presente == otra.presente && Arrays.equals(linealizadas, otra.linealizadas);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(linealizadas) + (presente ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.*;
+
+// Resultado del planificador de recorridos: orden de visita de las paradas y el camino
+// completo por el almacén que las une
+public class Recorrido {
+    final List<String> paradas;        // Inicio, paradas en orden de visita y, si corresponde, el regreso
+    final Camino camino;               // Todas las ubicaciones atravesadas
+    final List<String> inalcanzables;  // Paradas sin camino desde el inicio, de regreso o desde la parada anterior
+    final int mejoras;                 // Movimientos 2-opt / Or-opt aplicados sobre la semilla
+    final boolean optimoLocal;         // false si se agotó el presupuesto de tiempo antes
+
+    Recorrido(List<String> paradas, Camino camino, List<String> inalcanzables, int mejoras, boolean optimoLocal) {
+        this.paradas = paradas;
+        this.camino = camino;
+        this.inalcanzables = inalcanzables;
+        this.mejoras = mejoras;
+        this.optimoLocal = optimoLocal;
+    }
+
+    public List<String> getParadas() {
+        return paradas;
+    }
+
+    public Camino getCamino() {
+        return camino;
+    }
+
+    public double getDistancia() {
+        return camino.distancia;
+    }
+
+    public List<String> getInalcanzables() {
+        return inalcanzables;
+    }
+
+    public int getMejoras() {
+        return mejoras;
+    }
+
+    public boolean esOptimoLocal() {
+        return optimoLocal;
+    }
+
+    @Override
+    public String toString() {
+        String s = String.join(" → ", paradas) + " (" + camino.distancia + ")";
+        if (!inalcanzables.isEmpty()) s += " sin acceso a " + inalcanzables;
+        return s;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.*;
+
+// Distancias y árbol de predecesores de una ejecución de Dijkstra.
+// Si la búsqueda se cortó en un destino, solo son definitivas las distancias
+// de los nodos asentados antes de ese destino.
+public class ResultadoDijkstra {
+    final GrafoCompacto grafo;
+    final int origen;
+    final double[] distancias;
+    final int[] predecesores;
+    final int asentados;
+
+    ResultadoDijkstra(GrafoCompacto grafo, int origen, double[] distancias, int[] predecesores, int asentados) {
+        this.grafo = grafo;
+        this.origen = origen;
+        this.distancias = distancias;
+        this.predecesores = predecesores;
+        this.asentados = asentados;
+    }
+
+    public double distancia(String destino) {
+        int id = grafo.indice(destino);
+        return id < 0 ? Double.POSITIVE_INFINITY : distancias[id];
+    }
+
+    public Camino camino(String destino) {
+        int id = grafo.indice(destino);
+        if (id < 0) return Camino.inexistente(asentados);
+        return Camino.reconstruir(grafo, predecesores, id, distancias[id], asentados);
+    }
+
+    public int[] getPredecesores() {
+        return predecesores;
+    }
+
+    public double[] getDistancias() {
+        return distancias;
+    }
+
+    public int getAsentados() {
+        return asentados;
+    }
+
+    public Map<String, Double> comoMapa() {
+        Map<String, Double> mapa = new HashMap<>();
+        for (int i = 0; i < distancias.length; i++) {
+            mapa.put(grafo.nombres[i], distancias[i]);
+        }
+        return mapa;
+    }
+}
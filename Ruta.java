@@ -1,8 +1,14 @@
 public class Ruta {
+    Ubicacion origen;
     Ubicacion destino;
     double peso;
 
     public Ruta(Ubicacion destino, double peso) {
+        this(null, destino, peso);
+    }
+
+    public Ruta(Ubicacion origen, Ubicacion destino, double peso) {
+        this.origen = origen;
         this.destino = destino;
         this.peso = peso;
     }
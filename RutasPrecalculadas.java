@@ -0,0 +1,97 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Mantiene una JerarquiaContraccion al día con el grafo. Cada modificación solo marca la
+// jerarquía como pendiente; un hilo de fondo toma la instantánea y la reconstruye, así el
+// hilo que modifica no paga ni la compactación. Mientras tanto las consultas siguen usando
+// la jerarquía anterior.
+public class RutasPrecalculadas implements OyenteGrafo {
+    private final Grafo grafo;
+    private final ExecutorService ejecutor;
+    private volatile JerarquiaContraccion actual;
+    private boolean pendiente;       // protegido por this
+    private boolean reconstruyendo;  // protegido por this
+    private RuntimeException error;  // protegido por this; último fallo, hasta la próxima reconstrucción buena
+
+    public RutasPrecalculadas(Grafo grafo) {
+        this.grafo = grafo;
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "jerarquia-rutas");
+            t.setDaemon(true);
+            return t;
+        });
+        this.actual = JerarquiaContraccion.construir(grafo.compactar());
+        grafo.agregarOyente(this);
+    }
+
+    // Se llama con el candado del grafo tomado: solo anota y, si hace falta, despierta al hilo de fondo
+    @Override
+    public void grafoModificado() {
+        synchronized (this) {
+            pendiente = true;
+            if (reconstruyendo) return; // el hilo de fondo tomará la última versión al terminar
+            reconstruyendo = true;
+        }
+        ejecutor.execute(this::reconstruir);
+    }
+
+    private void reconstruir() {
+        boolean termino = false;
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (!pendiente) {
+                        reconstruyendo = false;
+                        termino = true;
+                        return;
+                    }
+                    pendiente = false;
+                }
+                // compactar espera a que termine la modificación o el lote en curso
+                JerarquiaContraccion nueva = JerarquiaContraccion.construir(grafo.compactar());
+                actual = nueva;
+                synchronized (this) {
+                    error = null;
+                }
+            }
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                error = ex;
+            }
+            throw ex;
+        } finally {
+            // Si falló, la próxima modificación vuelve a intentarlo
+            if (!termino) {
+                synchronized (this) {
+                    reconstruyendo = false;
+                }
+            }
+        }
+    }
+
+    public synchronized boolean estaActualizada() {
+        return !reconstruyendo && !pendiente && error == null;
+    }
+
+    // Motivo del último intento fallido, o null si la jerarquía vigente es la más reciente construible
+    public synchronized RuntimeException getError() {
+        return error;
+    }
+
+    public JerarquiaContraccion getJerarquia() {
+        return actual;
+    }
+
+    public double distancia(String origen, String destino) {
+        return actual.distancia(origen, destino);
+    }
+
+    public Camino camino(String origen, String destino) {
+        return actual.camino(origen, destino);
+    }
+
+    public void cerrar() {
+        grafo.quitarOyente(this);
+        ejecutor.shutdownNow();
+    }
+}
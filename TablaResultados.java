@@ -0,0 +1,103 @@
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+// Muestra una FuenteFilas en un TableView virtualizado: los elementos de la tabla son
+// números de fila calculados a demanda (ListaIndices) y cada celda pide su valor a la
+// fuente recién cuando se dibuja. Los resultados muy grandes se reparten en páginas para
+// que la barra de desplazamiento siga siendo manejable. El filtro corre como consulta en
+// segundo plano.
+public class TablaResultados extends VBox {
+    static final int FILAS_POR_PAGINA = 10_000;
+
+    private final EjecutorConsultas consultas;
+    private final TableView<Integer> tabla = new TableView<>();
+    private final ListaIndices filas = new ListaIndices();
+    private final Label lblTitulo = new Label("Sin resultados");
+    private final Label lblPagina = new Label();
+    private final TextField txtFiltro = new TextField();
+    private final Button btnAnterior = new Button("◀");
+    private final Button btnSiguiente = new Button("▶");
+    private FuenteFilas completa;  // Tal como llegó, sin filtrar
+    private FuenteFilas fuente;    // La que se está mostrando
+    private int pagina;
+    private int mostradas;         // Cuántas veces se cambió de fuente; identifica los filtros
+
+    public TablaResultados(EjecutorConsultas consultas) {
+        super(5);
+        this.consultas = consultas;
+        tabla.setItems(filas);
+        tabla.setPlaceholder(new Label("Sin filas"));
+        tabla.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        txtFiltro.setPromptText("Filtrar (Enter)");
+        txtFiltro.setOnAction(e -> filtrar(txtFiltro.getText().trim()));
+        btnAnterior.setOnAction(e -> irAPagina(pagina - 1));
+        btnSiguiente.setOnAction(e -> irAPagina(pagina + 1));
+
+        HBox barra = new HBox(10, lblTitulo, txtFiltro, btnAnterior, lblPagina, btnSiguiente);
+        barra.setAlignment(Pos.CENTER_LEFT);
+        getChildren().addAll(barra, tabla);
+        actualizarPaginas();
+    }
+
+    public void mostrar(String titulo, FuenteFilas nueva) {
+        mostradas++;
+        completa = nueva;
+        lblTitulo.setText(titulo);
+        txtFiltro.clear();
+        cambiarFuente(nueva);
+    }
+
+    private void cambiarFuente(FuenteFilas nueva) {
+        if (fuente == null || !fuente.columnas().equals(nueva.columnas())) {
+            tabla.getColumns().clear();
+            for (int c = 0; c < nueva.columnas().size(); c++) {
+                int columna = c;
+                TableColumn<Integer, String> col = new TableColumn<>(nueva.columnas().get(c));
+                // Las filas son índices, no valores: ordenar la lista no tendría sentido
+                col.setSortable(false);
+                col.setCellValueFactory(p -> new ReadOnlyStringWrapper(fuente.valor(p.getValue(), columna)));
+                tabla.getColumns().add(col);
+            }
+        }
+        fuente = nueva;
+        pagina = -1;
+        irAPagina(0);
+    }
+
+    private void filtrar(String texto) {
+        if (completa == null) return;
+        FuenteFilas base = completa;
+        int suMostrada = mostradas;
+        consultas.enviar("Filtro", "filtro:" + suMostrada + ":" + texto, (g, c) -> {
+            FuenteFilas filtrada = base.filtrar(texto);
+            c.enInterfaz(() -> {
+                // Si mientras tanto llegó otro resultado, el filtro ya no corresponde
+                if (suMostrada == mostradas) cambiarFuente(filtrada);
+            });
+        });
+    }
+
+    private void irAPagina(int nueva) {
+        int total = fuente == null ? 0 : fuente.cantidadFilas();
+        int paginas = Math.max(1, (total + FILAS_POR_PAGINA - 1) / FILAS_POR_PAGINA);
+        nueva = Math.max(0, Math.min(paginas - 1, nueva));
+        if (nueva == pagina) return;
+        pagina = nueva;
+        int desde = pagina * FILAS_POR_PAGINA;
+        filas.mostrar(desde, Math.min(FILAS_POR_PAGINA, total - desde));
+        tabla.scrollTo(0);
+        actualizarPaginas();
+    }
+
+    private void actualizarPaginas() {
+        int total = fuente == null ? 0 : fuente.cantidadFilas();
+        int paginas = Math.max(1, (total + FILAS_POR_PAGINA - 1) / FILAS_POR_PAGINA);
+        lblPagina.setText("Página " + (Math.max(pagina, 0) + 1) + " de " + paginas + " (" + total + " filas)");
+        btnAnterior.setDisable(pagina <= 0);
+        btnSiguiente.setDisable(pagina >= paginas - 1);
+    }
+}
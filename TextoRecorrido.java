@@ -0,0 +1,27 @@
+// Consumidor de MotorRecorrido que arma el texto con emojis que muestran Main y MainApp
+public class TextoRecorrido implements VisitanteRecorrido {
+    private final GrafoCompacto g;
+    private final StringBuilder sb;
+
+    public TextoRecorrido(GrafoCompacto g, String encabezado) {
+        this.g = g;
+        this.sb = new StringBuilder(encabezado);
+    }
+
+    @Override
+    public boolean entrar(int nodo, int profundidad) {
+        sb.append("📦 ").append(g.nombres[nodo]).append(" ➝ ");
+        return true;
+    }
+
+    @Override
+    public boolean salir(int nodo) {
+        sb.append("\n");
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
@@ -1,18 +1,54 @@
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Ubicacion {
     String nombre;
     List<Ruta> rutas;
-    BTree productos; // Árbol B para productos en esta ubicación
+    List<Ruta> entrantes;                 // Rutas de otras ubicaciones que llegan a esta
+    Map<Ubicacion, List<Ruta>> porDestino; // Rutas salientes agrupadas por destino (admite paralelas)
+    AlmacenProductos productos; // Árbol B por defecto; ver Grafo.cambiarAlmacen
+    private volatile CantidadesProductos existencias; // Se crea con la primera cantidad; ver existencias()
+    double x = Double.NaN; // Coordenadas opcionales en el plano del almacén
+    double y = Double.NaN;
 
     public Ubicacion(String nombre) {
         this.nombre = nombre;
         this.rutas = new ArrayList<>();
+        this.entrantes = new ArrayList<>();
+        this.porDestino = new HashMap<>();
         this.productos = new BTree();
     }
 
+    // Cantidad disponible y reservada por clave de producto; se crea al pedirla por primera vez,
+    // así las ubicaciones que nunca registran cantidades no ocupan memoria por ellas
+    CantidadesProductos existencias() {
+        CantidadesProductos e = existencias;
+        if (e == null) {
+            synchronized (this) {
+                e = existencias;
+                if (e == null) existencias = e = new CantidadesProductos();
+            }
+        }
+        return e;
+    }
+
+    // Carga masiva: una ubicación recién creada adopta cantidades armadas fuera del candado del Grafo
+    void asignarExistencias(CantidadesProductos e) {
+        existencias = e;
+    }
+
+    // Para solo leer: null si la ubicación todavía no registró cantidades
+    CantidadesProductos existenciasSiHay() {
+        return existencias;
+    }
+
+    public boolean tieneCoordenadas() {
+        return !Double.isNaN(x) && !Double.isNaN(y);
+    }
+
     @Override
     public String toString() {
         return nombre;
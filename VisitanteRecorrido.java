@@ -0,0 +1,12 @@
+// Avisos de MotorRecorrido sobre ids densos de la instantánea. Devolver false en
+// cualquiera de ellos detiene el recorrido en ese punto.
+public interface VisitanteRecorrido {
+    // profundidad = nivel en anchura, o altura de la pila en profundidad (el origen es 0)
+    default boolean entrar(int nodo, int profundidad) { return true; }
+
+    // tipo: MotorRecorrido.ARISTA_ARBOL, ARISTA_RETROCESO o ARISTA_VISTA
+    default boolean arista(int origen, int destino, int tipo) { return true; }
+
+    // En profundidad: cuando se terminaron sus descendientes. En anchura: tras revisar sus aristas.
+    default boolean salir(int nodo) { return true; }
+}
@@ -0,0 +1,168 @@
+import java.util.*;
+
+// Zonas conectadas del almacén (componentes débilmente conexas) mantenidas al vuelo con
+// unión-búsqueda: agregar una ruta une las zonas de sus extremos en O(α(n)). Quitar rutas
+// o ubicaciones no se puede deshacer en la estructura, así que solo la marca como vencida y
+// la próxima consulta la reconstruye una vez, sin importar cuántas bajas hubo.
+// También lleva el conjunto de ubicaciones aisladas (sin rutas de entrada ni de salida).
+class ZonasConexas implements OyenteGrafo {
+    private final Collection<Ubicacion> ubicaciones; // Vista viva del mapa de Grafo
+    private final Map<Ubicacion, Integer> ids = new IdentityHashMap<>();
+    private final LinkedHashSet<Ubicacion> aisladas = new LinkedHashSet<>();
+    private int[] padre = new int[16];
+    private int[] tamanio = new int[16];
+    private int cantidad;   // Ids asignados
+    private int zonas;
+    private boolean vencida;
+
+    ZonasConexas(Collection<Ubicacion> ubicaciones) {
+        this.ubicaciones = ubicaciones;
+        reconstruir();
+    }
+
+    int cantidadZonas() {
+        actualizar();
+        return zonas;
+    }
+
+    boolean mismaZona(Ubicacion a, Ubicacion b) {
+        actualizar();
+        return raiz(ids.get(a)) == raiz(ids.get(b));
+    }
+
+    // Zonas en el orden en que aparece su primera ubicación al recorrer el grafo
+    List<Set<String>> componentes() {
+        actualizar();
+        Map<Integer, Set<String>> porRaiz = new LinkedHashMap<>();
+        for (Ubicacion u : ubicaciones) {
+            porRaiz.computeIfAbsent(raiz(ids.get(u)), r -> new HashSet<>()).add(u.nombre);
+        }
+        return new ArrayList<>(porRaiz.values());
+    }
+
+    // Zona de cada ubicación en el orden de la colección (el mismo de la instantánea CSR),
+    // numeradas en orden de aparición; solo consulta la unión-búsqueda ya armada
+    int[] zonaPorPosicion() {
+        actualizar();
+        int[] densa = new int[cantidad];
+        Arrays.fill(densa, -1);
+        int[] zona = new int[ubicaciones.size()];
+        int i = 0, k = 0;
+        for (Ubicacion u : ubicaciones) {
+            int r = raiz(ids.get(u));
+            if (densa[r] < 0) densa[r] = k++;
+            zona[i++] = densa[r];
+        }
+        return zona;
+    }
+
+    Set<Ubicacion> aisladas() {
+        return Collections.unmodifiableSet(aisladas);
+    }
+
+    @Override
+    public void ubicacionAgregada(Ubicacion u) {
+        registrar(u);
+        aisladas.add(u);
+    }
+
+    @Override
+    public void ubicacionEliminada(Ubicacion u) {
+        aisladas.remove(u);
+        // Sus rutas salientes ya no cuentan como entrantes de los destinos
+        for (Ruta r : u.rutas) revisarAislada(r.destino);
+        vencida = true;
+    }
+
+    @Override
+    public void rutaAgregada(Ubicacion origen, Ruta ruta) {
+        aisladas.remove(origen);
+        aisladas.remove(ruta.destino);
+        if (!vencida) unir(ids.get(origen), ids.get(ruta.destino));
+    }
+
+    @Override
+    public void rutaEliminada(Ubicacion origen, Ruta ruta) {
+        revisarAislada(origen);
+        revisarAislada(ruta.destino);
+        vencida = true;
+    }
+
+    // Una carga grande no se une ruta por ruta: la próxima consulta reconstruye una sola vez.
+    // Las rutas llegan ya enlazadas, así que para las aisladas alcanza con mirar las listas de
+    // las que había, si son menos que las rutas (con millones de rutas, casi siempre)
+    @Override
+    public void cargaMasiva(List<Ubicacion> nuevas, List<Ruta> rutas) {
+        for (Ubicacion u : nuevas) {
+            registrar(u);
+            if (u.rutas.isEmpty() && u.entrantes.isEmpty()) aisladas.add(u);
+        }
+        if (aisladas.size() < rutas.size()) {
+            aisladas.removeIf(u -> !u.rutas.isEmpty() || !u.entrantes.isEmpty());
+        } else {
+            for (Ruta r : rutas) {
+                aisladas.remove(r.origen);
+                aisladas.remove(r.destino);
+            }
+        }
+        vencida = true;
+    }
+
+    private void revisarAislada(Ubicacion u) {
+        if (ids.containsKey(u) && u.rutas.isEmpty() && u.entrantes.isEmpty()) aisladas.add(u);
+    }
+
+    private void actualizar() {
+        if (vencida) reconstruir();
+    }
+
+    private void reconstruir() {
+        ids.clear();
+        cantidad = 0;
+        zonas = 0;
+        for (Ubicacion u : ubicaciones) registrar(u);
+        for (Ubicacion u : ubicaciones) {
+            for (Ruta r : u.rutas) unir(ids.get(u), ids.get(r.destino));
+        }
+        aisladas.clear();
+        for (Ubicacion u : ubicaciones) {
+            if (u.rutas.isEmpty() && u.entrantes.isEmpty()) aisladas.add(u);
+        }
+        vencida = false;
+    }
+
+    private void registrar(Ubicacion u) {
+        if (cantidad == padre.length) {
+            padre = Arrays.copyOf(padre, cantidad * 2);
+            tamanio = Arrays.copyOf(tamanio, cantidad * 2);
+        }
+        ids.put(u, cantidad);
+        padre[cantidad] = cantidad;
+        tamanio[cantidad] = 1;
+        cantidad++;
+        zonas++;
+    }
+
+    // Con compresión de caminos a la mitad: cada nodo visitado pasa a apuntar a su abuelo
+    private int raiz(int x) {
+        while (padre[x] != x) {
+            padre[x] = padre[padre[x]];
+            x = padre[x];
+        }
+        return x;
+    }
+
+    // Unión por tamaño
+    private void unir(int a, int b) {
+        int ra = raiz(a), rb = raiz(b);
+        if (ra == rb) return;
+        if (tamanio[ra] < tamanio[rb]) {
+            int tmp = ra;
+            ra = rb;
+            rb = tmp;
+        }
+        padre[rb] = ra;
+        tamanio[ra] += tamanio[rb];
+        zonas--;
+    }
+}